@@ -2,17 +2,51 @@ package io.imadam.betterchatcolours;
 
 import io.imadam.betterchatcolours.commands.ChatColorsCommand;
 import io.imadam.betterchatcolours.data.GlobalPresetManager;
+import io.imadam.betterchatcolours.data.PresetFileWatcher;
 import io.imadam.betterchatcolours.data.UserDataManager;
+import io.imadam.betterchatcolours.listeners.ChatRenderListener;
+import io.imadam.betterchatcolours.listeners.LuckPermsHook;
 import io.imadam.betterchatcolours.placeholders.ChatColorsExpansion;
+import io.imadam.betterchatcolours.render.RenderCache;
+import io.imadam.betterchatcolours.render.RenderMode;
+import io.imadam.betterchatcolours.scheduler.BukkitTaskScheduler;
+import io.imadam.betterchatcolours.scheduler.IoExecutor;
+import io.imadam.betterchatcolours.scheduler.TaskScheduler;
+import io.imadam.betterchatcolours.storage.StorageBackend;
+import io.imadam.betterchatcolours.storage.StorageBackends;
+import io.imadam.betterchatcolours.storage.YamlStorageBackend;
+import io.imadam.betterchatcolours.sync.LocalTransport;
+import io.imadam.betterchatcolours.sync.PluginMessageTransport;
+import io.imadam.betterchatcolours.sync.SyncManager;
+import io.imadam.betterchatcolours.transfer.DataTransfer;
+import io.imadam.betterchatcolours.transfer.StorageMigration;
+import net.kyori.adventure.text.Component;
 import org.bukkit.Bukkit;
 import org.bukkit.plugin.java.JavaPlugin;
 import xyz.xenondevs.invui.InvUI;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.logging.Level;
+
 public class BetterChatColours extends JavaPlugin {
 
   private static BetterChatColours instance;
+  private TaskScheduler taskScheduler;
+  private IoExecutor ioExecutor;
+  private volatile StorageBackend storage;
   private GlobalPresetManager globalPresetManager;
   private UserDataManager userDataManager;
+  private PresetFileWatcher presetFileWatcher;
+  private SyncManager syncManager;
+  private DataTransfer dataTransfer;
+  private StorageMigration storageMigration;
+  private LuckPermsHook luckPermsHook;
+  private volatile RenderMode renderMode;
+  private volatile RenderCache<String> renderCache;
+  private volatile RenderCache<Component> componentCache;
+  private volatile boolean chatRendererEnabled;
 
   @Override
   public void onEnable() {
@@ -26,6 +60,22 @@ public class BetterChatColours extends JavaPlugin {
       getDataFolder().mkdirs();
     }
 
+    taskScheduler = new BukkitTaskScheduler(this);
+
+    // Load settings
+    saveDefaultConfig();
+    loadSettings();
+
+    // All disk and database work runs here
+    ioExecutor = new IoExecutor(this, Math.max(16, getConfig().getInt("io.queue-capacity", 10000)),
+        getConfig().getBoolean("io.virtual-threads", false));
+    if (ioExecutor.usesVirtualThreads()) {
+      getLogger().info("Using virtual threads for I/O");
+    }
+
+    // Open storage
+    storage = openStorage(getConfig().getString("storage.type", "yaml"));
+
     // Initialize managers
     globalPresetManager = new GlobalPresetManager(this);
     userDataManager = new UserDataManager(this);
@@ -33,6 +83,31 @@ public class BetterChatColours extends JavaPlugin {
     // Load data
     globalPresetManager.loadPresets();
     userDataManager.loadUserData();
+    // Players already online after a reload or late enable won't join again
+    userDataManager.refreshOnlinePlayers();
+
+    // Cross-server sync
+    if (getConfig().getBoolean("sync.enabled", false)) {
+      String transport = getConfig().getString("sync.transport", "plugin-messaging");
+      syncManager = new SyncManager(this, transport.equalsIgnoreCase("local")
+          ? new LocalTransport()
+          : new PluginMessageTransport(this));
+      syncManager.start();
+    }
+
+    // Pick up hand edits to presets.yml
+    if (getConfig().getBoolean("storage.watch-presets-file", false)) {
+      if (storage instanceof YamlStorageBackend) {
+        presetFileWatcher = new PresetFileWatcher(this,
+            Math.max(50, getConfig().getLong("storage.watch-debounce-millis", 500)));
+        presetFileWatcher.start();
+      } else {
+        getLogger().warning("storage.watch-presets-file only works with yaml storage");
+      }
+    }
+
+    dataTransfer = new DataTransfer(this);
+    storageMigration = new StorageMigration(this);
 
     // Register commands (main command and aliases)
     ChatColorsCommand commandExecutor = new ChatColorsCommand(this);
@@ -49,6 +124,11 @@ public class BetterChatColours extends JavaPlugin {
     // Register listeners
     getServer().getPluginManager().registerEvents(new io.imadam.betterchatcolours.gui.ChatInputManager(), this);
     getServer().getPluginManager().registerEvents(new io.imadam.betterchatcolours.listeners.PermissionListener(), this);
+    getServer().getPluginManager().registerEvents(new ChatRenderListener(), this);
+    getServer().getPluginManager().registerEvents(new io.imadam.betterchatcolours.listeners.UserDataListener(), this);
+    if (getServer().getPluginManager().getPlugin("LuckPerms") != null) {
+      luckPermsHook = new LuckPermsHook(this);
+    }
 
     // Register PlaceholderAPI expansion if available
     if (Bukkit.getPluginManager().getPlugin("PlaceholderAPI") != null) {
@@ -63,12 +143,35 @@ public class BetterChatColours extends JavaPlugin {
 
   @Override
   public void onDisable() {
+    if (presetFileWatcher != null) {
+      presetFileWatcher.stop();
+    }
+    if (luckPermsHook != null) {
+      luckPermsHook.close();
+    }
+    if (syncManager != null) {
+      syncManager.close();
+    }
+    if (dataTransfer != null) {
+      dataTransfer.close();
+    }
+    if (storageMigration != null) {
+      storageMigration.close();
+    }
+
     // Save data
     if (globalPresetManager != null) {
-      globalPresetManager.savePresets();
+      globalPresetManager.flushChanges().exceptionally(e -> null).join();
     }
     if (userDataManager != null) {
-      userDataManager.saveUserData();
+      userDataManager.shutdown();
+    }
+    if (storage != null) {
+      storage.close();
+    }
+    // Last, once every component has finished with it
+    if (ioExecutor != null) {
+      ioExecutor.shutdown();
     }
 
     getLogger().info("BetterChatColours has been disabled!");
@@ -86,13 +189,124 @@ public class BetterChatColours extends JavaPlugin {
     return userDataManager;
   }
 
-  public void reload() {
+  /**
+   * @return the sync manager, or null if sync is disabled
+   */
+  public SyncManager getSyncManager() {
+    return syncManager;
+  }
+
+  public DataTransfer getDataTransfer() {
+    return dataTransfer;
+  }
+
+  public StorageMigration getStorageMigration() {
+    return storageMigration;
+  }
+
+  public StorageBackend getStorage() {
+    return storage;
+  }
+
+  /**
+   * Runs tasks on the server thread, for continuing storage futures there.
+   */
+  public Executor getMainThreadExecutor() {
+    return taskScheduler.globalExecutor();
+  }
+
+  public TaskScheduler getTaskScheduler() {
+    return taskScheduler;
+  }
+
+  public IoExecutor getIoExecutor() {
+    return ioExecutor;
+  }
+
+  public RenderMode getRenderMode() {
+    return renderMode;
+  }
+
+  public RenderCache<String> getRenderCache() {
+    return renderCache;
+  }
+
+  public RenderCache<Component> getComponentCache() {
+    return componentCache;
+  }
+
+  public boolean isChatRendererEnabled() {
+    return chatRendererEnabled;
+  }
+
+  /**
+   * Drops everything cached for a preset that was edited or removed.
+   */
+  public void invalidateRenderCaches(String presetName) {
+    renderCache.invalidate(presetName);
+    componentCache.invalidate(presetName);
+  }
+
+  private void loadSettings() {
+    renderMode = RenderMode.fromConfig(getConfig().getString("render-mode", "native"));
+    chatRendererEnabled = getConfig().getBoolean("chat-renderer.enabled", false);
+
+    int maxEntries = getConfig().getInt("render-cache.max-entries", 10000);
+    long maxCharacters = getConfig().getLong("render-cache.max-characters", 2000000L);
+    renderCache = new RenderCache<>(maxEntries, maxCharacters, String::length);
+    // Components are weighed by their source text, which they hold once
+    componentCache = new RenderCache<>(maxEntries, maxCharacters, component -> 0);
+  }
+
+  private StorageBackend openStorage(String type) {
+    StorageBackend backend = StorageBackends.create(this, type);
+    try {
+      backend.init().join();
+    } catch (CompletionException e) {
+      getLogger().log(Level.SEVERE, "Could not open " + backend.getName() + " storage, using yaml", e.getCause());
+      backend.close();
+      backend = new YamlStorageBackend(this);
+      backend.init().join();
+    }
+    getLogger().info("Using " + backend.getName() + " storage");
+    return backend;
+  }
+
+  /**
+   * Makes {@code target} the live storage and records it in the config. Called on
+   * the main thread at the end of a migration, once everything has been copied.
+   *
+   * @return the storage that was replaced, still open
+   */
+  public StorageBackend switchStorage(StorageBackend target) {
+    StorageBackend previous = storage;
+    storage = target;
+    getConfig().set("storage.type", target.getName());
+    saveConfig();
+
+    if (presetFileWatcher != null && !(target instanceof YamlStorageBackend)) {
+      presetFileWatcher.stop();
+      presetFileWatcher = null;
+    }
+    return previous;
+  }
+
+  /**
+   * Reloads the config right away and the stored data in the background.
+   * Changing {@code storage.type} needs a restart.
+   *
+   * @return completes on the main thread once the new data is in use
+   */
+  public CompletableFuture<Void> reload() {
     getLogger().info("Reloading BetterChatColours...");
 
-    // Reload data
-    globalPresetManager.loadPresets();
-    userDataManager.loadUserData();
+    // Reload settings
+    reloadConfig();
+    loadSettings();
 
-    getLogger().info("BetterChatColours reloaded successfully!");
+    // Reload data
+    return globalPresetManager.reloadPresets()
+        .thenCompose(ignored -> userDataManager.reloadUserData())
+        .thenRun(() -> getLogger().info("BetterChatColours reloaded successfully!"));
   }
 }
@@ -2,6 +2,7 @@ package io.imadam.betterchatcolours.commands;
 
 import io.imadam.betterchatcolours.BetterChatColours;
 import io.imadam.betterchatcolours.gui.MainMenuGUI;
+import io.imadam.betterchatcolours.render.RenderCache;
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.format.NamedTextColor;
 import org.bukkit.command.Command;
@@ -10,6 +11,9 @@ import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Player;
 import org.jetbrains.annotations.NotNull;
 
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
 public class ChatColorsCommand implements CommandExecutor {
 
   private final BetterChatColours plugin;
@@ -42,12 +46,62 @@ public class ChatColorsCommand implements CommandExecutor {
         return true;
       }
 
-      try {
-        plugin.reload();
-        player.sendMessage(Component.text("BetterChatColours reloaded successfully!", NamedTextColor.GREEN));
-      } catch (Exception e) {
-        player.sendMessage(Component.text("Error reloading plugin: " + e.getMessage(), NamedTextColor.RED));
-        plugin.getLogger().severe("Error reloading plugin: " + e.getMessage());
+      // Data is read in the background; report once it has been applied
+      plugin.reload().whenComplete((result, e) -> {
+        if (e == null) {
+          player.sendMessage(Component.text("BetterChatColours reloaded successfully!", NamedTextColor.GREEN));
+        } else {
+          player.sendMessage(Component.text("Error reloading plugin: " + e.getMessage(), NamedTextColor.RED));
+          plugin.getLogger().severe("Error reloading plugin: " + e.getMessage());
+        }
+      });
+      return true;
+    }
+
+    // Handle stats subcommand
+    if (args.length > 0 && args[0].equalsIgnoreCase("stats")) {
+      if (!player.hasPermission("chatcolor.admin")) {
+        player.sendMessage(Component.text("You don't have permission to view stats!", NamedTextColor.RED));
+        return true;
+      }
+
+      sendCacheStats(player, "Render cache", plugin.getRenderCache());
+      sendCacheStats(player, "Chat renderer cache", plugin.getComponentCache());
+      return true;
+    }
+
+    // Handle export and import subcommands
+    if (args.length > 0 && (args[0].equalsIgnoreCase("export") || args[0].equalsIgnoreCase("import"))) {
+      if (!player.hasPermission("chatcolor.admin")) {
+        player.sendMessage(Component.text("You don't have permission to transfer data!", NamedTextColor.RED));
+        return true;
+      }
+
+      if (args[0].equalsIgnoreCase("export")) {
+        String fileName = args.length > 1 ? args[1]
+            : "export-" + new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date());
+        player.sendMessage(Component.text("Exporting presets and equips...", NamedTextColor.YELLOW));
+        plugin.getDataTransfer().startExport(player, fileName);
+      } else if (args.length < 2) {
+        player.sendMessage(Component.text("Usage: /chatcolors import <file>", NamedTextColor.RED));
+      } else {
+        player.sendMessage(Component.text("Importing presets and equips...", NamedTextColor.YELLOW));
+        plugin.getDataTransfer().startImport(player, args[1]);
+      }
+      return true;
+    }
+
+    // Handle migrate subcommand
+    if (args.length > 0 && args[0].equalsIgnoreCase("migrate")) {
+      if (!player.hasPermission("chatcolor.admin")) {
+        player.sendMessage(Component.text("You don't have permission to migrate storage!", NamedTextColor.RED));
+        return true;
+      }
+
+      if (args.length < 3) {
+        player.sendMessage(Component.text("Usage: /chatcolors migrate <from> <to>", NamedTextColor.RED));
+      } else {
+        plugin.getStorageMigration().start(player, args[1].toLowerCase(), args[2].toLowerCase());
       }
       return true;
     }
@@ -62,4 +116,11 @@ public class ChatColorsCommand implements CommandExecutor {
 
     return true;
   }
+
+  private void sendCacheStats(Player player, String name, RenderCache<?> cache) {
+    player.sendMessage(Component.text(name + ": " + cache.size() + " entries, "
+        + cache.getWeight() + " characters", NamedTextColor.YELLOW));
+    player.sendMessage(Component.text(String.format("Hits: %d, misses: %d, evictions: %d, hit rate: %.1f%%",
+        cache.getHits(), cache.getMisses(), cache.getEvictions(), cache.getHitRate() * 100), NamedTextColor.GRAY));
+  }
 }
@@ -0,0 +1,164 @@
+package io.imadam.betterchatcolours.data;
+
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * Player UUID to preset id map stored in three parallel primitive arrays, with
+ * linear probing and backward-shift deletion. About 20 bytes per slot and no
+ * per-entry objects, compared to a boxed UUID, map node and name String per player
+ * in a {@code HashMap<UUID, String>}. All methods are synchronized.
+ */
+final class EquipMap {
+
+  static final int NO_ID = -1;
+  private static final float LOAD_FACTOR = 0.6f;
+
+  private long[] most;
+  private long[] least;
+  // NO_ID marks a free slot
+  private int[] ids;
+  private int size;
+  private int resizeAt;
+
+  EquipMap() {
+    allocate(64);
+  }
+
+  synchronized int get(UUID playerUuid) {
+    int slot = find(playerUuid.getMostSignificantBits(), playerUuid.getLeastSignificantBits());
+    return slot < 0 ? NO_ID : ids[slot];
+  }
+
+  synchronized boolean containsKey(UUID playerUuid) {
+    return find(playerUuid.getMostSignificantBits(), playerUuid.getLeastSignificantBits()) >= 0;
+  }
+
+  /**
+   * @return the previous id, or {@link #NO_ID}
+   */
+  synchronized int put(UUID playerUuid, int id) {
+    return insert(playerUuid.getMostSignificantBits(), playerUuid.getLeastSignificantBits(), id, true);
+  }
+
+  synchronized int putIfAbsent(UUID playerUuid, int id) {
+    return insert(playerUuid.getMostSignificantBits(), playerUuid.getLeastSignificantBits(), id, false);
+  }
+
+  /**
+   * @return the removed id, or {@link #NO_ID}
+   */
+  synchronized int remove(UUID playerUuid) {
+    int slot = find(playerUuid.getMostSignificantBits(), playerUuid.getLeastSignificantBits());
+    if (slot < 0) {
+      return NO_ID;
+    }
+    int removed = ids[slot];
+    deleteSlot(slot);
+    return removed;
+  }
+
+  synchronized int size() {
+    return size;
+  }
+
+  synchronized void clear() {
+    allocate(64);
+  }
+
+  synchronized void forEach(EquipConsumer consumer) {
+    for (int slot = 0; slot < ids.length; slot++) {
+      if (ids[slot] != NO_ID) {
+        consumer.accept(new UUID(most[slot], least[slot]), ids[slot]);
+      }
+    }
+  }
+
+  @FunctionalInterface
+  interface EquipConsumer {
+    void accept(UUID playerUuid, int presetId);
+  }
+
+  private int find(long mostBits, long leastBits) {
+    int mask = ids.length - 1;
+    for (int slot = hash(mostBits, leastBits) & mask; ids[slot] != NO_ID; slot = (slot + 1) & mask) {
+      if (most[slot] == mostBits && least[slot] == leastBits) {
+        return slot;
+      }
+    }
+    return -1;
+  }
+
+  private int insert(long mostBits, long leastBits, int id, boolean replace) {
+    int mask = ids.length - 1;
+    int slot = hash(mostBits, leastBits) & mask;
+    for (; ids[slot] != NO_ID; slot = (slot + 1) & mask) {
+      if (most[slot] == mostBits && least[slot] == leastBits) {
+        int previous = ids[slot];
+        if (replace) {
+          ids[slot] = id;
+        }
+        return previous;
+      }
+    }
+
+    most[slot] = mostBits;
+    least[slot] = leastBits;
+    ids[slot] = id;
+    if (++size > resizeAt) {
+      rehash(ids.length * 2);
+    }
+    return NO_ID;
+  }
+
+  /**
+   * Moves later entries of the probe run back into the gap, so lookups never need
+   * tombstones.
+   */
+  private void deleteSlot(int slot) {
+    int mask = ids.length - 1;
+    int gap = slot;
+    for (int next = (gap + 1) & mask; ids[next] != NO_ID; next = (next + 1) & mask) {
+      int home = hash(most[next], least[next]) & mask;
+      // Move the entry if its home slot is not between the gap and its current slot
+      if (((next - home) & mask) >= ((next - gap) & mask)) {
+        most[gap] = most[next];
+        least[gap] = least[next];
+        ids[gap] = ids[next];
+        gap = next;
+      }
+    }
+    ids[gap] = NO_ID;
+    size--;
+  }
+
+  private void rehash(int capacity) {
+    long[] oldMost = most;
+    long[] oldLeast = least;
+    int[] oldIds = ids;
+    int oldSize = size;
+    allocate(capacity);
+    for (int slot = 0; slot < oldIds.length; slot++) {
+      if (oldIds[slot] != NO_ID) {
+        insert(oldMost[slot], oldLeast[slot], oldIds[slot], true);
+      }
+    }
+    size = oldSize;
+  }
+
+  private void allocate(int capacity) {
+    most = new long[capacity];
+    least = new long[capacity];
+    ids = new int[capacity];
+    Arrays.fill(ids, NO_ID);
+    size = 0;
+    resizeAt = (int) (capacity * LOAD_FACTOR);
+  }
+
+  private static int hash(long mostBits, long leastBits) {
+    // Random UUIDs are already well mixed; fold and spread for other versions
+    long bits = mostBits ^ leastBits;
+    int hash = (int) (bits ^ (bits >>> 32));
+    return hash ^ (hash >>> 16);
+  }
+}
@@ -1,44 +1,155 @@
 package io.imadam.betterchatcolours.data;
 
-import java.util.List;
+import io.imadam.betterchatcolours.render.GradientRamp;
+import io.imadam.betterchatcolours.render.GradientRenderer;
+import io.imadam.betterchatcolours.render.RampCache;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.minimessage.MiniMessage;
+import net.kyori.adventure.text.serializer.legacy.LegacyComponentSerializer;
+import xyz.xenondevs.invui.item.Item;
+import xyz.xenondevs.invui.item.ItemProvider;
 
-public class GlobalPresetData {
-  private String name;
-  private List<String> colors;
-  private String permission;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * An immutable, compiled preset. Everything derived from the colour list is
+ * computed once here, so lookups on the chat and GUI paths never rebuild tags or
+ * re-parse hex strings. Editing a preset replaces the whole object.
+ */
+public final class GlobalPresetData {
+  private final String name;
+  private final List<String> colors;
+  private final String permission;
+  private final int[] rgb;
+  private final String gradientTag;
+  private final String closingTag;
+  private final String legacyPrefix;
+  private final RampCache ramps;
+  private volatile String displayName;
+  // Menu items built from this preset, keyed by menu; they go with the object when it's edited
+  private final Map<String, ItemProvider> icons = new ConcurrentHashMap<>(4);
+  private final Map<String, Item> menuItems = new ConcurrentHashMap<>(4);
 
   public GlobalPresetData(String name, List<String> colors, String permission) {
     this.name = name;
-    this.colors = colors;
-    this.permission = permission;
+    this.colors = colors == null ? List.of() : List.copyOf(colors);
+    this.permission = permission == null ? "" : permission;
+    this.rgb = GradientRenderer.parseColors(this.colors);
+    this.gradientTag = buildGradientTag(this.colors);
+    this.closingTag = buildClosingTag(this.colors);
+    this.legacyPrefix = rgb == null ? "" : GradientRenderer.legacyCode(rgb[0]);
+    this.ramps = rgb == null ? null : new RampCache(rgb);
   }
 
-  public String getName() {
-    return name;
+  /**
+   * Whether both presets were defined with the same name, colours and permission.
+   */
+  public boolean hasSameDefinition(GlobalPresetData other) {
+    return name.equals(other.name) && colors.equals(other.colors) && permission.equals(other.permission);
   }
 
-  public void setName(String name) {
-    this.name = name;
+  public String getName() {
+    return name;
   }
 
   public List<String> getColors() {
     return colors;
   }
 
-  public void setColors(List<String> colors) {
-    this.colors = colors;
-  }
-
   public String getPermission() {
     return permission;
   }
 
-  public void setPermission(String permission) {
-    this.permission = permission;
+  /**
+   * The colour stops as packed RGB values, or null if a colour is not valid hex.
+   * The array is shared and must not be modified.
+   */
+  public int[] getRgb() {
+    return rgb;
   }
 
   public String getGradientTag() {
-    if (colors == null || colors.isEmpty()) {
+    return gradientTag;
+  }
+
+  public String getClosingTag() {
+    return closingTag;
+  }
+
+  /**
+   * The legacy colour code of the first colour stop.
+   */
+  public String getLegacyPrefix() {
+    return legacyPrefix;
+  }
+
+  /**
+   * The gradient ramp for a message of {@code length} code points, built on first
+   * use. Only valid when {@link #getRgb()} is not null.
+   */
+  public GradientRamp getRamp(int length) {
+    return ramps.get(length);
+  }
+
+  /**
+   * The name in the preset's own colours as legacy text, for menus. Rendered from
+   * the colour stops on first use, or through MiniMessage when a colour isn't hex.
+   */
+  public String getDisplayName() {
+    String rendered = displayName;
+    if (rendered == null) {
+      rendered = rgb == null ? renderWithMiniMessage(name) : GradientRenderer.render(rgb, name);
+      displayName = rendered;
+    }
+    return rendered;
+  }
+
+  private String renderWithMiniMessage(String text) {
+    if (colors.isEmpty()) {
+      return "§e§l" + text;
+    }
+
+    try {
+      Component component = MiniMessage.miniMessage().deserialize(gradientTag + text + closingTag);
+      return LegacyComponentSerializer.legacySection().serialize(component);
+    } catch (Exception e) {
+      // Fallback to yellow text if gradient parsing fails
+      return "§e§l" + text;
+    }
+  }
+
+  /**
+   * The item shown for this preset in {@code menu}, built by {@code factory} the
+   * first time that menu asks for it.
+   */
+  public ItemProvider getIcon(String menu, Function<GlobalPresetData, ItemProvider> factory) {
+    ItemProvider icon = icons.get(menu);
+    return icon != null ? icon : icons.computeIfAbsent(menu, key -> factory.apply(this));
+  }
+
+  /**
+   * The item for this preset in {@code menu}, created once and shared by every
+   * open copy of that menu. Items must not hold per-viewer state.
+   */
+  public Item getMenuItem(String menu, Function<GlobalPresetData, Item> factory) {
+    Item item = menuItems.get(menu);
+    return item != null ? item : menuItems.computeIfAbsent(menu, key -> factory.apply(this));
+  }
+
+  /**
+   * Drops the cached ramps once this preset has been replaced or removed.
+   */
+  public void clearRamps() {
+    if (ramps != null) {
+      ramps.clear();
+    }
+  }
+
+  private static String buildGradientTag(List<String> colors) {
+    if (colors.isEmpty()) {
       return "";
     }
 
@@ -57,8 +168,8 @@ public class GlobalPresetData {
     return gradient.toString();
   }
 
-  public String getClosingTag() {
-    if (colors == null || colors.isEmpty()) {
+  private static String buildClosingTag(List<String> colors) {
+    if (colors.isEmpty()) {
       return "";
     }
 
@@ -1,84 +1,193 @@
 package io.imadam.betterchatcolours.data;
 
 import io.imadam.betterchatcolours.BetterChatColours;
-import org.bukkit.configuration.file.FileConfiguration;
-import org.bukkit.configuration.file.YamlConfiguration;
+import io.imadam.betterchatcolours.sync.SyncManager;
 import org.bukkit.entity.Player;
 
-import java.io.File;
-import java.io.IOException;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.logging.Level;
 
 public class GlobalPresetManager {
   private final BetterChatColours plugin;
-  private final Map<String, GlobalPresetData> presets;
-  private final File presetsFile;
+  // Swapped as a whole, never modified in place, so async readers need no locking
+  private final AtomicReference<PresetRegistry> registry = new AtomicReference<>(PresetRegistry.EMPTY);
+  // Interned preset names: an id is handed out the first time a name is seen and never
+  // reused, so per-player records can hold an int instead of their own String
+  private final Map<String, Integer> presetIds = new ConcurrentHashMap<>();
+  private volatile String[] presetNames = new String[64];
+  private int nextPresetId;
+  // Edits not handed to storage yet, by name; a null value means removed. Compound
+  // updates, and flushScheduled, are guarded by the map's lock
+  private final Map<String, GlobalPresetData> pendingChanges = Collections.synchronizedMap(new LinkedHashMap<>());
+  private boolean flushScheduled;
+  // Counts writes handed to storage, to tell whether a read may predate one of them
+  private final AtomicLong presetWrites = new AtomicLong();
 
   public GlobalPresetManager(BetterChatColours plugin) {
     this.plugin = plugin;
-    this.presets = new HashMap<>();
-    this.presetsFile = new File(plugin.getDataFolder(), "presets.yml");
   }
 
+  /**
+   * Loads presets at startup, waiting for storage since nothing can render without them.
+   */
   public void loadPresets() {
-    presets.clear();
+    try {
+      applyPresets(plugin.getStorage().loadPresets().join());
+    } catch (CompletionException e) {
+      plugin.getLogger().log(Level.SEVERE, "Error loading presets", e.getCause());
+      applyPresets(Map.of());
+    }
+  }
 
-    if (!presetsFile.exists()) {
-      createDefaultPresets();
-      savePresets();
+  /**
+   * Reads presets from storage in the background and swaps them in on the main thread.
+   */
+  public CompletableFuture<Void> reloadPresets() {
+    // Write pending edits first so the reload reads them back
+    return flushChanges()
+        .exceptionally(e -> null)
+        .thenCompose(ignored -> plugin.getStorage().loadPresets())
+        .exceptionally(e -> {
+          plugin.getLogger().log(Level.SEVERE, "Error loading presets", e);
+          return Map.of();
+        })
+        .thenAcceptAsync(this::applyPresets, plugin.getMainThreadExecutor());
+  }
+
+  /**
+   * Re-reads stored presets and applies only what was added, changed or removed,
+   * for when presets.yml was edited by hand. Reading runs off the main thread;
+   * player data is left alone apart from re-validating holders of changed presets.
+   */
+  public CompletableFuture<Void> reloadChangedPresets() {
+    long writes = presetWrites.get();
+    return plugin.getStorage().loadPresets()
+        .thenComposeAsync(loaded -> {
+          // An in-game edit flushed after the read started is newer than what was read
+          if (presetWrites.get() != writes) {
+            return reloadChangedPresets();
+          }
+          applyDiff(loaded);
+          return CompletableFuture.completedFuture(null);
+        }, plugin.getMainThreadExecutor());
+  }
+
+  private void applyDiff(Map<String, GlobalPresetData> loaded) {
+    // Against the registry as it is now, not when the file was read
+    PresetDiff diff = PresetDiff.between(registry.get(), loaded);
+    if (diff.loadedEmpty) {
+      plugin.getLogger().warning("presets.yml has no presets, ignoring the change");
       return;
     }
 
-    try {
-      FileConfiguration config = YamlConfiguration.loadConfiguration(presetsFile);
+    // An edit made in game but not written yet is newer than the file
+    diff.changed.removeIf(preset -> pendingChanges.containsKey(preset.getName()));
+    diff.removed.removeIf(pendingChanges::containsKey);
+    if (diff.changed.isEmpty() && diff.removed.isEmpty()) {
+      return;
+    }
 
-      if (config.getConfigurationSection("presets") == null) {
-        createDefaultPresets();
-        savePresets();
-        return;
+    PresetRegistry previous = registry.getAndUpdate(current -> current.withChanges(diff.changed, diff.removed));
+    List<String> names = new ArrayList<>(diff.removed);
+    for (GlobalPresetData preset : diff.changed) {
+      names.add(preset.getName());
+    }
+    for (String name : names) {
+      GlobalPresetData old = previous.get(name);
+      if (old != null) {
+        old.clearRamps();
       }
+      plugin.invalidateRenderCaches(name);
+      plugin.getUserDataManager().refreshPresetHolders(name);
+    }
+
+    // Hand edits spread like in-game ones
+    SyncManager sync = plugin.getSyncManager();
+    if (sync != null) {
+      diff.changed.forEach(sync::publishPreset);
+      diff.removed.forEach(sync::publishPresetRemoved);
+    }
 
-      for (String presetName : config.getConfigurationSection("presets").getKeys(false)) {
-        String path = "presets." + presetName;
-        List<String> colors = config.getStringList(path + ".colors");
-        String permission = config.getString(path + ".permission", "");
+    plugin.getLogger().info("Applied presets.yml changes: " + diff.changed.size() + " added or changed, "
+        + diff.removed.size() + " removed");
+  }
 
-        if (!colors.isEmpty()) {
-          presets.put(presetName, new GlobalPresetData(presetName, colors, permission));
-        }
-      }
+  private void applyPresets(Map<String, GlobalPresetData> loaded) {
+    pendingChanges.clear();
+    boolean useDefaults = loaded.isEmpty();
+    PresetRegistry replaced = registry.getAndSet(new PresetRegistry(useDefaults ? createDefaultPresets() : loaded));
 
-      plugin.getLogger().info("Loaded " + presets.size() + " global presets");
+    for (GlobalPresetData preset : replaced.values()) {
+      preset.clearRamps();
+    }
+    plugin.getRenderCache().clear();
+    plugin.getComponentCache().clear();
 
-    } catch (Exception e) {
-      plugin.getLogger().log(Level.SEVERE, "Error loading presets", e);
-      createDefaultPresets();
+    if (useDefaults) {
       savePresets();
+    } else {
+      plugin.getLogger().info("Loaded " + loaded.size() + " global presets");
     }
   }
 
-  public void savePresets() {
-    try {
-      FileConfiguration config = new YamlConfiguration();
-
-      for (GlobalPresetData preset : presets.values()) {
-        String path = "presets." + preset.getName();
-        config.set(path + ".colors", preset.getColors());
-        config.set(path + ".permission", preset.getPermission());
-      }
+  /**
+   * The current presets. The snapshot never changes; call again to see later edits.
+   */
+  public PresetRegistry getRegistry() {
+    return registry.get();
+  }
 
-      config.save(presetsFile);
+  /**
+   * Writes all current presets in the background.
+   */
+  public CompletableFuture<Void> savePresets() {
+    pendingChanges.clear();
+    presetWrites.incrementAndGet();
+    return plugin.getStorage().savePresets(List.copyOf(registry.get().values()))
+        .whenComplete((result, e) -> {
+          if (e != null) {
+            plugin.getLogger().log(Level.SEVERE, "Error saving presets", e);
+          }
+        });
+  }
 
-    } catch (IOException e) {
-      plugin.getLogger().log(Level.SEVERE, "Error saving presets", e);
+  private static final class PresetDiff {
+    private final List<GlobalPresetData> changed = new ArrayList<>();
+    private final List<String> removed = new ArrayList<>();
+    private boolean loadedEmpty;
+
+    private static PresetDiff between(PresetRegistry current, Map<String, GlobalPresetData> loaded) {
+      PresetDiff diff = new PresetDiff();
+      diff.loadedEmpty = loaded.isEmpty();
+      for (GlobalPresetData preset : loaded.values()) {
+        GlobalPresetData existing = current.get(preset.getName());
+        if (existing == null || !existing.hasSameDefinition(preset)) {
+          diff.changed.add(preset);
+        }
+      }
+      for (GlobalPresetData preset : current.values()) {
+        if (!loaded.containsKey(preset.getName())) {
+          diff.removed.add(preset.getName());
+        }
+      }
+      return diff;
     }
   }
 
-  private void createDefaultPresets() {
+  private Map<String, GlobalPresetData> createDefaultPresets() {
+    Map<String, GlobalPresetData> presets = new LinkedHashMap<>();
+
     // Standard Minecraft Colors (single colors)
     presets.put("black", new GlobalPresetData("black", List.of("#000000"), "chatcolor.preset.black"));
     presets.put("dark_blue", new GlobalPresetData("dark_blue", List.of("#0000AA"), "chatcolor.preset.dark_blue"));
@@ -130,11 +239,35 @@ public class GlobalPresetManager {
 
     plugin.getLogger()
         .info("Created " + presets.size() + " default presets (16 standard colors + 9 premium gradients)");
+    return presets;
   }
 
   public void addPreset(String name, List<String> colors, String permission) {
-    presets.put(name, new GlobalPresetData(name, colors, permission));
-    savePresets();
+    GlobalPresetData preset = new GlobalPresetData(name, colors, permission);
+    putPreset(preset);
+
+    SyncManager sync = plugin.getSyncManager();
+    if (sync != null) {
+      sync.publishPreset(preset);
+    }
+  }
+
+  /**
+   * A preset edited on another server: stored here too, but not published again.
+   */
+  public void applyRemotePreset(GlobalPresetData preset) {
+    putPreset(preset);
+  }
+
+  private void putPreset(GlobalPresetData preset) {
+    String name = preset.getName();
+    GlobalPresetData previous = registry.getAndUpdate(current -> current.with(preset)).get(name);
+    if (previous != null) {
+      previous.clearRamps();
+    }
+    plugin.invalidateRenderCaches(name);
+    queueChange(name, preset);
+    plugin.getUserDataManager().refreshPresetHolders(name);
   }
 
   public void addPreset(String name, List<String> colors) {
@@ -143,6 +276,24 @@ public class GlobalPresetManager {
     addPreset(name, colors, permission);
   }
 
+  /**
+   * Adds or replaces a batch of imported presets in one registry swap. Imports
+   * are not published to other servers.
+   */
+  public void importPresets(List<GlobalPresetData> imported) {
+    PresetRegistry previous = registry.getAndUpdate(current -> current.withChanges(imported, List.of()));
+    for (GlobalPresetData preset : imported) {
+      String name = preset.getName();
+      GlobalPresetData old = previous.get(name);
+      if (old != null) {
+        old.clearRamps();
+      }
+      plugin.invalidateRenderCaches(name);
+      queueChange(name, preset);
+      plugin.getUserDataManager().refreshPresetHolders(name);
+    }
+  }
+
   public String generateUniquePresetName(String baseName) {
     String name = baseName;
     int counter = 1;
@@ -156,22 +307,154 @@ public class GlobalPresetManager {
   }
 
   public void removePreset(String name) {
-    presets.remove(name);
-    savePresets();
+    deletePreset(name);
+
+    SyncManager sync = plugin.getSyncManager();
+    if (sync != null) {
+      sync.publishPresetRemoved(name);
+    }
+  }
+
+  /**
+   * A preset removed on another server: removed here too, but not published again.
+   */
+  public void applyRemotePresetRemoval(String name) {
+    deletePreset(name);
+  }
+
+  private void deletePreset(String name) {
+    GlobalPresetData removed = registry.getAndUpdate(current -> current.without(name)).get(name);
+    if (removed != null) {
+      removed.clearRamps();
+    }
+    plugin.invalidateRenderCaches(name);
+    queueChange(name, null);
+    plugin.getUserDataManager().refreshPresetHolders(name);
+  }
+
+  private void queueChange(String name, GlobalPresetData preset) {
+    pendingChanges.put(name, preset);
+    queueFlush();
+  }
+
+  private void queueFlush() {
+    synchronized (pendingChanges) {
+      // Edits made in quick succession (e.g. in the admin GUI) go out in one write
+      if (flushScheduled) {
+        return;
+      }
+      flushScheduled = true;
+    }
+    plugin.getTaskScheduler().runGlobalLater(this::flushChanges, 20L);
+  }
+
+  /**
+   * Hands pending edits to storage, which writes only the affected presets.
+   */
+  public CompletableFuture<Void> flushChanges() {
+    List<GlobalPresetData> changed = new ArrayList<>();
+    List<String> removed = new ArrayList<>();
+    synchronized (pendingChanges) {
+      flushScheduled = false;
+      for (Map.Entry<String, GlobalPresetData> change : pendingChanges.entrySet()) {
+        if (change.getValue() == null) {
+          removed.add(change.getKey());
+        } else {
+          changed.add(change.getValue());
+        }
+      }
+      pendingChanges.clear();
+    }
+    if (changed.isEmpty() && removed.isEmpty()) {
+      return CompletableFuture.completedFuture(null);
+    }
+
+    CompletableFuture<Void> save;
+    presetWrites.incrementAndGet();
+    try {
+      save = plugin.getStorage().savePresetChanges(changed, removed);
+    } catch (RejectedExecutionException e) {
+      // Storage is backed up: keep the edits, unless newer ones replaced them, and try again later
+      synchronized (pendingChanges) {
+        for (GlobalPresetData preset : changed) {
+          if (!pendingChanges.containsKey(preset.getName())) {
+            pendingChanges.put(preset.getName(), preset);
+          }
+        }
+        for (String name : removed) {
+          if (!pendingChanges.containsKey(name)) {
+            pendingChanges.put(name, null);
+          }
+        }
+      }
+      queueFlush();
+      return CompletableFuture.failedFuture(e);
+    }
+    return save
+        .whenComplete((result, e) -> {
+          if (e != null) {
+            plugin.getLogger().log(Level.SEVERE, "Error saving presets", e);
+          }
+        });
+  }
+
+  /**
+   * Stable id for a preset name for as long as the server runs. Names of presets
+   * that no longer exist get ids too, since players can still have them equipped.
+   */
+  public int getPresetId(String name) {
+    Integer id = presetIds.get(name);
+    return id != null ? id : assignPresetId(name);
+  }
+
+  private synchronized int assignPresetId(String name) {
+    Integer existing = presetIds.get(name);
+    if (existing != null) {
+      return existing;
+    }
+
+    int id = nextPresetId++;
+    String[] names = presetNames;
+    if (id == names.length) {
+      names = Arrays.copyOf(names, names.length * 2);
+    }
+    names[id] = name;
+    // Publish the array before the id, so anyone who can see the id can resolve it
+    presetNames = names;
+    presetIds.put(name, id);
+    return id;
+  }
+
+  public String getPresetName(int id) {
+    return presetNames[id];
   }
 
   public GlobalPresetData getPreset(String name) {
-    return presets.get(name);
+    return registry.get().get(name);
   }
 
+  /**
+   * @return an unmodifiable view of the current snapshot
+   */
   public Map<String, GlobalPresetData> getAllPresets() {
-    return new HashMap<>(presets);
+    return registry.get().asMap();
+  }
+
+  /**
+   * @return every preset in menu order, see {@link PresetRegistry#CATALOG_ORDER}
+   */
+  public List<GlobalPresetData> getCatalog() {
+    return registry.get().catalog();
   }
 
+  /**
+   * @return the presets the player may use, in menu order
+   */
   public List<GlobalPresetData> getAvailablePresets(Player player) {
-    List<GlobalPresetData> available = new ArrayList<>();
+    List<GlobalPresetData> catalog = registry.get().catalog();
+    List<GlobalPresetData> available = new ArrayList<>(catalog.size());
 
-    for (GlobalPresetData preset : presets.values()) {
+    for (GlobalPresetData preset : catalog) {
       String permission = preset.getPermission();
       if (permission.isEmpty() || player.hasPermission(permission)) {
         available.add(preset);
@@ -182,6 +465,6 @@ public class GlobalPresetManager {
   }
 
   public boolean presetExists(String name) {
-    return presets.containsKey(name);
+    return registry.get().contains(name);
   }
 }
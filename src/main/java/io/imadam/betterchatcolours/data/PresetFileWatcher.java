@@ -0,0 +1,103 @@
+package io.imadam.betterchatcolours.data;
+
+import io.imadam.betterchatcolours.BetterChatColours;
+import io.imadam.betterchatcolours.storage.YamlStorageBackend;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+/**
+ * Watches the data folder and applies hand edits to presets.yml without a
+ * /chatcolors reload. Bursts of events (editors often write a file several times)
+ * are collapsed until the file has been quiet for the debounce period.
+ */
+public class PresetFileWatcher {
+
+  private static final String PRESETS_FILE = "presets.yml";
+
+  private final BetterChatColours plugin;
+  private final long debounceMillis;
+  private WatchService watchService;
+  private Thread thread;
+
+  public PresetFileWatcher(BetterChatColours plugin, long debounceMillis) {
+    this.plugin = plugin;
+    this.debounceMillis = debounceMillis;
+  }
+
+  public void start() {
+    try {
+      watchService = FileSystems.getDefault().newWatchService();
+      plugin.getDataFolder().toPath().register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+          StandardWatchEventKinds.ENTRY_MODIFY);
+    } catch (IOException e) {
+      plugin.getLogger().log(Level.WARNING, "Could not watch " + PRESETS_FILE + " for changes", e);
+      return;
+    }
+
+    thread = new Thread(this::run, "BetterChatColours-PresetWatcher");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  public void stop() {
+    if (watchService == null) {
+      return;
+    }
+    try {
+      watchService.close();
+    } catch (IOException e) {
+      plugin.getLogger().log(Level.WARNING, "Error closing file watcher", e);
+    }
+    thread.interrupt();
+  }
+
+  private void run() {
+    try {
+      while (true) {
+        if (!drain(watchService.take())) {
+          continue;
+        }
+
+        WatchKey next;
+        while ((next = watchService.poll(debounceMillis, TimeUnit.MILLISECONDS)) != null) {
+          drain(next);
+        }
+
+        // Our own saves wake the watcher too
+        if (plugin.getStorage() instanceof YamlStorageBackend yaml && !yaml.isPresetsFileChanged()) {
+          continue;
+        }
+        plugin.getGlobalPresetManager().reloadChangedPresets().exceptionally(e -> {
+          plugin.getLogger().log(Level.WARNING, "Error applying " + PRESETS_FILE + " changes", e);
+          return null;
+        });
+      }
+    } catch (InterruptedException | ClosedWatchServiceException e) {
+      // Stopped
+    }
+  }
+
+  /**
+   * @return whether any of the events concern presets.yml
+   */
+  private boolean drain(WatchKey key) {
+    boolean relevant = false;
+    for (WatchEvent<?> event : key.pollEvents()) {
+      if (event.kind() == StandardWatchEventKinds.OVERFLOW
+          || ((Path) event.context()).getFileName().toString().equals(PRESETS_FILE)) {
+        relevant = true;
+      }
+    }
+    key.reset();
+    return relevant;
+  }
+}
@@ -0,0 +1,93 @@
+package io.imadam.betterchatcolours.data;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An immutable snapshot of all presets. {@link GlobalPresetManager} builds a new
+ * one for every reload or edit and swaps it in atomically, so readers on any
+ * thread see either the old set or the new one, never something in between.
+ */
+public final class PresetRegistry {
+
+  static final PresetRegistry EMPTY = new PresetRegistry(Map.of());
+
+  /**
+   * Menu order: most colours first, then by name ignoring case.
+   */
+  public static final Comparator<GlobalPresetData> CATALOG_ORDER = Comparator
+      .comparingInt((GlobalPresetData preset) -> preset.getColors().size()).reversed()
+      .thenComparing(GlobalPresetData::getName, String.CASE_INSENSITIVE_ORDER);
+
+  private final Map<String, GlobalPresetData> byName;
+  private final List<GlobalPresetData> catalog;
+
+  PresetRegistry(Map<String, GlobalPresetData> presets) {
+    this.byName = Collections.unmodifiableMap(new LinkedHashMap<>(presets));
+    // Sorted once per change, so opening a menu only has to filter
+    GlobalPresetData[] sorted = byName.values().toArray(new GlobalPresetData[0]);
+    Arrays.sort(sorted, CATALOG_ORDER);
+    this.catalog = Collections.unmodifiableList(Arrays.asList(sorted));
+  }
+
+  public GlobalPresetData get(String name) {
+    return byName.get(name);
+  }
+
+  public boolean contains(String name) {
+    return byName.containsKey(name);
+  }
+
+  public Collection<GlobalPresetData> values() {
+    return byName.values();
+  }
+
+  /**
+   * @return every preset in {@link #CATALOG_ORDER}, unmodifiable
+   */
+  public List<GlobalPresetData> catalog() {
+    return catalog;
+  }
+
+  /**
+   * @return an unmodifiable view by name
+   */
+  public Map<String, GlobalPresetData> asMap() {
+    return byName;
+  }
+
+  public int size() {
+    return byName.size();
+  }
+
+  PresetRegistry withChanges(Collection<GlobalPresetData> changed, Collection<String> removed) {
+    Map<String, GlobalPresetData> presets = new LinkedHashMap<>(byName);
+    for (String name : removed) {
+      presets.remove(name);
+    }
+    for (GlobalPresetData preset : changed) {
+      presets.put(preset.getName(), preset);
+    }
+    return new PresetRegistry(presets);
+  }
+
+  PresetRegistry with(GlobalPresetData preset) {
+    Map<String, GlobalPresetData> presets = new LinkedHashMap<>(byName);
+    presets.put(preset.getName(), preset);
+    return new PresetRegistry(presets);
+  }
+
+  PresetRegistry without(String name) {
+    if (!byName.containsKey(name)) {
+      return this;
+    }
+    Map<String, GlobalPresetData> presets = new LinkedHashMap<>(byName);
+    presets.remove(name);
+    return new PresetRegistry(presets);
+  }
+}
@@ -1,74 +1,372 @@
 package io.imadam.betterchatcolours.data;
 
 import io.imadam.betterchatcolours.BetterChatColours;
-import org.bukkit.configuration.file.FileConfiguration;
-import org.bukkit.configuration.file.YamlConfiguration;
+import io.imadam.betterchatcolours.scheduler.IoLane;
+import io.imadam.betterchatcolours.storage.StorageBackend;
+import io.imadam.betterchatcolours.sync.SyncManager;
 import org.bukkit.entity.Player;
 
-import java.io.File;
-import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
 import java.util.logging.Level;
 
 public class UserDataManager {
   private final BetterChatColours plugin;
-  private final Map<UUID, String> userEquippedPresets;
-  private final File userDataFile;
+  // Equipped preset ids from GlobalPresetManager#getPresetId, see storedPreset/storePreset
+  private final EquipMap userEquippedPresets = new EquipMap();
+  // Validated preset per online player, read by the chat hot path
+  private final Map<UUID, GlobalPresetData> activePresets = new ConcurrentHashMap<>();
+  private final Queue<PendingUnequip> pendingUnequips = new ConcurrentLinkedQueue<>();
+  private final AtomicBoolean unequipDrainScheduled = new AtomicBoolean();
+  // Write-behind: changes only mark the player dirty, a background thread writes the changed entries
+  private final IoLane flushExecutor;
+  // A fresh token per change, so a flush only clears the entry if nothing changed since it read the value
+  private final Map<UUID, Object> dirtyPlayers = new ConcurrentHashMap<>();
+  private final int flushThreshold;
+  // Lazy mode: only online players (plus a grace period after quitting) are held in memory
+  private final boolean lazyLoading;
+  private final long unloadGraceTicks;
+  private final Set<UUID> residentPlayers = ConcurrentHashMap.newKeySet();
+  private final Map<UUID, String> offlineCache;
+  // A token per preloadPlayer in flight; any change to the player removes it, so the
+  // older stored value isn't installed over the change
+  private final Map<UUID, Object> preloads = new ConcurrentHashMap<>();
+  // Players whose data was written while a storage migration is copying, see trackWrites
+  private volatile Map<UUID, String> writeTracker;
 
   public UserDataManager(BetterChatColours plugin) {
     this.plugin = plugin;
-    this.userEquippedPresets = new HashMap<>();
-    this.userDataFile = new File(plugin.getDataFolder(), "userdata.yml");
+
+    long flushInterval = Math.max(1, plugin.getConfig().getLong("storage.flush-interval-seconds", 5));
+    this.flushThreshold = Math.max(1, plugin.getConfig().getInt("storage.flush-dirty-threshold", 100));
+    this.flushExecutor = plugin.getIoExecutor().newLane("UserData");
+    flushExecutor.scheduleWithFixedDelay(this::flushIfDirty, flushInterval, flushInterval, TimeUnit.SECONDS);
+
+    this.lazyLoading = plugin.getConfig().getBoolean("storage.lazy-loading", false);
+    this.unloadGraceTicks = Math.max(0, plugin.getConfig().getLong("storage.unload-grace-seconds", 60)) * 20L;
+    int offlineCacheSize = Math.max(0, plugin.getConfig().getInt("storage.offline-cache-size", 1000));
+    this.offlineCache = Collections.synchronizedMap(new LinkedHashMap<UUID, String>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<UUID, String> eldest) {
+        return size() > offlineCacheSize;
+      }
+    });
   }
 
+  /**
+   * Loads equipped presets at startup, waiting for storage before players can join.
+   */
   public void loadUserData() {
+    try {
+      applyUserData(loadResidentData().join());
+    } catch (CompletionException e) {
+      plugin.getLogger().log(Level.SEVERE, "Error loading user data", e.getCause());
+    }
+  }
+
+  /**
+   * Writes pending changes, then reads everything back in the background and
+   * swaps it in on the main thread.
+   */
+  public CompletableFuture<Void> reloadUserData() {
+    return flush()
+        .thenCompose(ignored -> loadResidentData())
+        .thenAcceptAsync(loaded -> {
+          applyUserData(loaded);
+          refreshOnlinePlayers();
+        }, plugin.getMainThreadExecutor());
+  }
+
+  /**
+   * Everything in eager mode; only the players online right now in lazy mode.
+   */
+  private CompletableFuture<Map<UUID, String>> loadResidentData() {
+    if (!lazyLoading) {
+      return plugin.getStorage().loadAllEquips();
+    }
+
+    Map<UUID, String> loaded = new ConcurrentHashMap<>();
+    List<CompletableFuture<Void>> lookups = new ArrayList<>();
+    for (Player player : plugin.getServer().getOnlinePlayers()) {
+      UUID playerUuid = player.getUniqueId();
+      lookups.add(plugin.getStorage().loadEquip(playerUuid).thenAccept(preset -> {
+        if (preset != null) {
+          loaded.put(playerUuid, preset);
+        }
+      }));
+    }
+    return CompletableFuture.allOf(lookups.toArray(new CompletableFuture[0])).thenApply(ignored -> loaded);
+  }
+
+  private void applyUserData(Map<UUID, String> loaded) {
+    // Changes made while the load was running are newer than what was read
+    Map<UUID, String> pending = new HashMap<>();
+    for (UUID playerUuid : dirtyPlayers.keySet()) {
+      pending.put(playerUuid, orUnequipped(storedPreset(playerUuid)));
+    }
+
     userEquippedPresets.clear();
+    loaded.forEach(this::storePreset);
+    for (Map.Entry<UUID, String> entry : pending.entrySet()) {
+      if (entry.getValue().equals(StorageBackend.UNEQUIPPED)) {
+        userEquippedPresets.remove(entry.getKey());
+      } else {
+        storePreset(entry.getKey(), entry.getValue());
+      }
+    }
 
-    if (!userDataFile.exists()) {
+    if (lazyLoading) {
+      residentPlayers.clear();
+      userEquippedPresets.forEach((playerUuid, presetId) -> residentPlayers.add(playerUuid));
+      for (Player player : plugin.getServer().getOnlinePlayers()) {
+        residentPlayers.add(player.getUniqueId());
+      }
+      offlineCache.clear();
+    }
+  }
+
+  /**
+   * Lazy mode: fetches a joining player's record so it is in memory before they
+   * spawn. Called from {@code AsyncPlayerPreLoginEvent}, so it may block.
+   */
+  public void preloadPlayer(UUID playerUuid) {
+    if (!lazyLoading) {
       return;
     }
 
+    Object token = new Object();
+    preloads.put(playerUuid, token);
     try {
-      FileConfiguration config = YamlConfiguration.loadConfiguration(userDataFile);
-
-      if (config.getConfigurationSection("users") == null) {
+      if (residentPlayers.contains(playerUuid)) {
         return;
       }
 
-      for (String uuidString : config.getConfigurationSection("users").getKeys(false)) {
+      String preset = offlineCache.remove(playerUuid);
+      if (preset == null) {
         try {
-          UUID uuid = UUID.fromString(uuidString);
-          String preset = config.getString("users." + uuidString + ".equipped");
-
-          if (preset != null && !preset.isEmpty()) {
-            userEquippedPresets.put(uuid, preset);
-          }
-        } catch (IllegalArgumentException e) {
-          plugin.getLogger().warning("Invalid UUID in userdata.yml: " + uuidString);
+          preset = plugin.getStorage().loadEquip(playerUuid).get(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          return;
+        } catch (ExecutionException | TimeoutException e) {
+          plugin.getLogger().log(Level.WARNING, "Could not load user data for " + playerUuid, e);
+          return;
         }
       }
 
-      plugin.getLogger().info("Loaded user data for " + userEquippedPresets.size() + " players");
+      // Installed under the map's lock for this key, so a change can't slip in between
+      // the check and the install; a change made while the lookup ran is newer
+      String loaded = preset;
+      preloads.computeIfPresent(playerUuid, (uuid, current) -> {
+        if (current == token && loaded != null && !loaded.equals(StorageBackend.UNEQUIPPED)) {
+          userEquippedPresets.putIfAbsent(playerUuid, plugin.getGlobalPresetManager().getPresetId(loaded));
+        }
+        return current == token ? null : current;
+      });
+      residentPlayers.add(playerUuid);
+    } finally {
+      preloads.remove(playerUuid, token);
+    }
+  }
 
-    } catch (Exception e) {
-      plugin.getLogger().log(Level.SEVERE, "Error loading user data", e);
+  /**
+   * Called before any change to a player's record, so a preload still in flight
+   * doesn't install the older stored value over it.
+   */
+  private void cancelPreload(UUID playerUuid) {
+    if (lazyLoading) {
+      preloads.remove(playerUuid);
     }
   }
 
+  /**
+   * Looks up a player's equipped preset whether or not they are online. In lazy
+   * mode offline players are fetched from storage and kept in a small cache.
+   *
+   * @return the preset name, or null if none is equipped
+   */
+  public CompletableFuture<String> lookupEquippedPreset(UUID playerUuid) {
+    if (!lazyLoading || residentPlayers.contains(playerUuid)) {
+      return CompletableFuture.completedFuture(storedPreset(playerUuid));
+    }
+
+    String cached = offlineCache.get(playerUuid);
+    if (cached != null) {
+      return CompletableFuture.completedFuture(cached.equals(StorageBackend.UNEQUIPPED) ? null : cached);
+    }
+
+    return plugin.getStorage().loadEquip(playerUuid).thenApply(preset -> {
+      offlineCache.put(playerUuid, preset == null ? StorageBackend.UNEQUIPPED : preset);
+      return preset;
+    });
+  }
+
+  /**
+   * Changes to a player who isn't loaded make them resident until the change is written.
+   */
+  private void markResident(UUID playerUuid) {
+    if (lazyLoading && residentPlayers.add(playerUuid)) {
+      offlineCache.remove(playerUuid);
+      if (plugin.getServer().getPlayer(playerUuid) == null) {
+        scheduleUnload(playerUuid);
+      }
+    }
+  }
+
+  private void scheduleUnload(UUID playerUuid) {
+    plugin.getTaskScheduler().runGlobalLater(() -> unloadIfOffline(playerUuid), unloadGraceTicks);
+  }
+
+  private void unloadIfOffline(UUID playerUuid) {
+    if (plugin.getServer().getPlayer(playerUuid) != null || !residentPlayers.contains(playerUuid)) {
+      return;
+    }
+    // Keep the record until its change is written, the flush reads it from memory
+    if (dirtyPlayers.containsKey(playerUuid)) {
+      scheduleUnload(playerUuid);
+      return;
+    }
+
+    int presetId = userEquippedPresets.remove(playerUuid);
+    residentPlayers.remove(playerUuid);
+    offlineCache.put(playerUuid, presetId == EquipMap.NO_ID
+        ? StorageBackend.UNEQUIPPED
+        : plugin.getGlobalPresetManager().getPresetName(presetId));
+  }
+
+  /**
+   * Writes the pending changes in the background.
+   */
+  public CompletableFuture<Void> flush() {
+    return CompletableFuture.runAsync(this::flushIfDirty, flushExecutor);
+  }
+
+  /**
+   * Writes the pending changes, then runs {@code task} on the flush thread. No
+   * other flush reaches storage until it returns.
+   */
+  public <T> CompletableFuture<T> withWritesHeld(Supplier<T> task) {
+    return CompletableFuture.supplyAsync(() -> {
+      flushIfDirty();
+      return task.get();
+    }, flushExecutor);
+  }
+
+  /**
+   * Applies a batch of imported equips on the main thread. In lazy mode, players
+   * who aren't loaded are written straight to storage instead of being loaded.
+   * Imports are not published to other servers.
+   */
+  public CompletableFuture<Void> importEquips(Map<UUID, String> equips) {
+    Map<UUID, String> direct = new HashMap<>();
+    for (Map.Entry<UUID, String> entry : equips.entrySet()) {
+      UUID playerUuid = entry.getKey();
+      if (lazyLoading && !residentPlayers.contains(playerUuid)) {
+        offlineCache.remove(playerUuid);
+        direct.put(playerUuid, entry.getValue());
+      } else {
+        applyEquip(playerUuid, entry.getValue());
+      }
+    }
+    if (direct.isEmpty()) {
+      return CompletableFuture.completedFuture(null);
+    }
+    recordWrites(direct);
+    return plugin.getStorage().saveEquips(direct);
+  }
+
+  /**
+   * Records every equip written to storage into {@code tracker}, UNEQUIPPED for
+   * removals, until {@link #stopTrackingWrites()}. Lets a migration copy the
+   * writes that land after it has read a player.
+   */
+  public void trackWrites(Map<UUID, String> tracker) {
+    writeTracker = tracker;
+  }
+
+  public void stopTrackingWrites() {
+    writeTracker = null;
+  }
+
+  private void recordWrites(Map<UUID, String> written) {
+    Map<UUID, String> tracker = writeTracker;
+    if (tracker != null) {
+      tracker.putAll(written);
+    }
+  }
+
+  /**
+   * Writes the pending changes and waits for the write to finish.
+   */
   public void saveUserData() {
     try {
-      FileConfiguration config = new YamlConfiguration();
+      CompletableFuture.runAsync(this::flushIfDirty, flushExecutor).get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (ExecutionException e) {
+      plugin.getLogger().log(Level.SEVERE, "Error saving user data", e.getCause());
+    }
+  }
 
-      for (Map.Entry<UUID, String> entry : userEquippedPresets.entrySet()) {
-        config.set("users." + entry.getKey().toString() + ".equipped", entry.getValue());
+  /**
+   * Final blocking flush, then stops the background writer.
+   */
+  public void shutdown() {
+    saveUserData();
+    flushExecutor.close(10, TimeUnit.SECONDS);
+  }
+
+  private void markDirty(UUID playerUuid) {
+    if (dirtyPlayers.put(playerUuid, new Object()) == null && dirtyPlayers.size() == flushThreshold) {
+      try {
+        flushExecutor.execute(this::flushIfDirty);
+      } catch (RejectedExecutionException e) {
+        // The writer is backed up; the periodic flush picks these up
       }
+    }
+  }
 
-      config.save(userDataFile);
+  private void flushIfDirty() {
+    if (dirtyPlayers.isEmpty()) {
+      return;
+    }
+
+    // Read the value before clearing the mark, so the record can't be unloaded in between;
+    // a change made after the read replaces the token and stays marked for the next flush
+    Map<UUID, String> changes = new HashMap<>();
+    for (Map.Entry<UUID, Object> dirty : dirtyPlayers.entrySet()) {
+      UUID playerUuid = dirty.getKey();
+      changes.put(playerUuid, orUnequipped(storedPreset(playerUuid)));
+      dirtyPlayers.remove(playerUuid, dirty.getValue());
+    }
 
-    } catch (IOException e) {
-      plugin.getLogger().log(Level.SEVERE, "Error saving user data", e);
+    // Recorded before the write, so a migration comparing the two stores never misses it
+    recordWrites(changes);
+    try {
+      plugin.getStorage().saveEquips(changes).join();
+    } catch (CompletionException e) {
+      plugin.getLogger().log(Level.SEVERE, "Error saving user data", e.getCause());
+      // Retry on the next flush
+      for (UUID playerUuid : changes.keySet()) {
+        dirtyPlayers.putIfAbsent(playerUuid, new Object());
+      }
     }
   }
 
@@ -77,20 +375,61 @@ public class UserDataManager {
   }
 
   public void setEquippedPreset(UUID playerUuid, String presetName) {
+    applyEquip(playerUuid, presetName);
+
+    SyncManager sync = plugin.getSyncManager();
+    if (sync != null) {
+      sync.publishEquip(playerUuid, presetName);
+    }
+  }
+
+  /**
+   * An equip made on another server: stored here too, but not published again.
+   */
+  public void applyRemoteEquip(UUID playerUuid, String presetName) {
+    applyEquip(playerUuid, presetName);
+  }
+
+  private void applyEquip(UUID playerUuid, String presetName) {
+    cancelPreload(playerUuid);
     if (presetName == null || presetName.isEmpty()) {
       userEquippedPresets.remove(playerUuid);
     } else {
-      userEquippedPresets.put(playerUuid, presetName);
+      storePreset(playerUuid, presetName);
     }
-    saveUserData();
+    markResident(playerUuid);
+    markDirty(playerUuid);
+    refreshIfOnline(playerUuid);
+  }
+
+  private String storedPreset(UUID playerUuid) {
+    int presetId = userEquippedPresets.get(playerUuid);
+    return presetId == EquipMap.NO_ID ? null : plugin.getGlobalPresetManager().getPresetName(presetId);
+  }
+
+  private void storePreset(UUID playerUuid, String presetName) {
+    userEquippedPresets.put(playerUuid, plugin.getGlobalPresetManager().getPresetId(presetName));
+  }
+
+  private static String orUnequipped(String presetName) {
+    return presetName == null ? StorageBackend.UNEQUIPPED : presetName;
   }
 
   public String getEquippedPreset(Player player) {
     return getEquippedPreset(player.getUniqueId());
   }
 
+  /**
+   * In lazy mode this only knows about loaded players and whatever the offline
+   * cache holds; use {@link #lookupEquippedPreset(UUID)} for arbitrary offline players.
+   */
   public String getEquippedPreset(UUID playerUuid) {
-    return userEquippedPresets.get(playerUuid);
+    String preset = storedPreset(playerUuid);
+    if (preset == null && lazyLoading && !residentPlayers.contains(playerUuid)) {
+      String cached = offlineCache.get(playerUuid);
+      return cached == null || cached.equals(StorageBackend.UNEQUIPPED) ? null : cached;
+    }
+    return preset;
   }
 
   public boolean hasEquippedPreset(Player player) {
@@ -98,9 +437,7 @@ public class UserDataManager {
   }
 
   public boolean hasEquippedPreset(UUID playerUuid) {
-    return userEquippedPresets.containsKey(playerUuid) &&
-        userEquippedPresets.get(playerUuid) != null &&
-        !userEquippedPresets.get(playerUuid).isEmpty();
+    return userEquippedPresets.containsKey(playerUuid);
   }
 
   public void clearEquippedPreset(Player player) {
@@ -108,38 +445,161 @@ public class UserDataManager {
   }
 
   public void clearEquippedPreset(UUID playerUuid) {
+    cancelPreload(playerUuid);
     userEquippedPresets.remove(playerUuid);
-    saveUserData();
+    markResident(playerUuid);
+    markDirty(playerUuid);
+    activePresets.remove(playerUuid);
+
+    SyncManager sync = plugin.getSyncManager();
+    if (sync != null) {
+      sync.publishEquip(playerUuid, null);
+    }
+  }
+
+  private void refreshIfOnline(UUID playerUuid) {
+    Player player = plugin.getServer().getPlayer(playerUuid);
+    if (player != null) {
+      checkAndUnequipInvalidPreset(player);
+    } else {
+      activePresets.remove(playerUuid);
+    }
+  }
+
+  /**
+   * The preset to render for an online player, as last validated. Safe to call
+   * from async chat threads: this is a single concurrent map read, with no preset
+   * lookup or permission check.
+   *
+   * @return the validated preset, or null if nothing should be rendered
+   */
+  public GlobalPresetData getActivePreset(Player player) {
+    return activePresets.get(player.getUniqueId());
   }
 
   /**
-   * Checks if a player still has permission for their equipped preset.
-   * If not, automatically unequips it.
+   * Re-validates a player's equipped preset and updates the cached state read by
+   * {@link #getActivePreset(Player)}. Called on join, on permission changes and
+   * when presets change. If the preset is gone or no longer permitted, the unequip
+   * is queued to the main thread.
    * @param player The player to check
-   * @return true if the preset was unequipped due to lack of permission
+   * @return true if the preset is being unequipped
    */
   public boolean checkAndUnequipInvalidPreset(Player player) {
-    String equippedPreset = getEquippedPreset(player);
+    return validateActivePreset(player, true);
+  }
+
+  /**
+   * Updates the cached state like {@link #checkAndUnequipInvalidPreset(Player)} but
+   * never unequips, for when permissions may not be fully loaded yet (on join).
+   */
+  public void refreshActivePreset(Player player) {
+    validateActivePreset(player, false);
+  }
+
+  private boolean validateActivePreset(Player player, boolean unequipInvalid) {
+    UUID playerUuid = player.getUniqueId();
+    String equippedPreset = getEquippedPreset(playerUuid);
     if (equippedPreset == null || equippedPreset.isEmpty()) {
+      activePresets.remove(playerUuid);
       return false; // No preset equipped
     }
 
     GlobalPresetData preset = plugin.getGlobalPresetManager().getPreset(equippedPreset);
     if (preset == null) {
       // Preset no longer exists, unequip it
-      clearEquippedPreset(player);
-      return true;
+      activePresets.remove(playerUuid);
+      if (unequipInvalid) {
+        queueUnequip(playerUuid, equippedPreset, null);
+      }
+      return unequipInvalid;
     }
 
     // Check if player still has permission for this preset
     String permission = preset.getPermission();
-    if (permission != null && !permission.isEmpty() && !player.hasPermission(permission)) {
+    if (!permission.isEmpty() && !player.hasPermission(permission)) {
       // Player lost permission, unequip the preset
-      clearEquippedPreset(player);
-      player.sendMessage("§c§lNotice: §7Your chatcolor preset '§e" + preset.getName() + "§7' has been unequipped because you no longer have permission to use it.");
-      return true;
+      activePresets.remove(playerUuid);
+      if (unequipInvalid) {
+        queueUnequip(playerUuid, equippedPreset, "§c§lNotice: §7Your chatcolor preset '§e" + preset.getName()
+            + "§7' has been unequipped because you no longer have permission to use it.");
+      }
+      return unequipInvalid;
     }
 
+    activePresets.put(playerUuid, preset);
     return false; // Preset is still valid
   }
+
+  /**
+   * Re-validates every online player who has this preset equipped, after it was
+   * edited or removed.
+   */
+  public void refreshPresetHolders(String presetName) {
+    for (Player player : plugin.getServer().getOnlinePlayers()) {
+      if (presetName.equals(getEquippedPreset(player))) {
+        checkAndUnequipInvalidPreset(player);
+      }
+    }
+  }
+
+  public void refreshOnlinePlayers() {
+    for (Player player : plugin.getServer().getOnlinePlayers()) {
+      checkAndUnequipInvalidPreset(player);
+    }
+  }
+
+  /**
+   * Called on quit. In lazy mode the record is unloaded after the grace period
+   * unless the player comes back.
+   */
+  public void forgetPlayer(UUID playerUuid) {
+    activePresets.remove(playerUuid);
+    if (lazyLoading) {
+      scheduleUnload(playerUuid);
+    }
+  }
+
+  private void queueUnequip(UUID playerUuid, String presetName, String notice) {
+    pendingUnequips.add(new PendingUnequip(playerUuid, presetName, notice));
+    if (unequipDrainScheduled.compareAndSet(false, true)) {
+      plugin.getTaskScheduler().runGlobal(this::drainUnequips);
+    }
+  }
+
+  /**
+   * Applies all queued unequips on the main thread; the next flush persists them together.
+   */
+  private void drainUnequips() {
+    unequipDrainScheduled.set(false);
+
+    PendingUnequip pending;
+    while ((pending = pendingUnequips.poll()) != null) {
+      // Skip if the player re-equipped something in the meantime
+      if (!pending.presetName.equals(storedPreset(pending.playerUuid))) {
+        continue;
+      }
+
+      cancelPreload(pending.playerUuid);
+      userEquippedPresets.remove(pending.playerUuid);
+      markDirty(pending.playerUuid);
+
+      Player player = plugin.getServer().getPlayer(pending.playerUuid);
+      if (player != null && pending.notice != null) {
+        player.sendMessage(pending.notice);
+      }
+    }
+  }
+
+  private static final class PendingUnequip {
+    private final UUID playerUuid;
+    private final String presetName;
+    private final String notice;
+
+    private PendingUnequip(UUID playerUuid, String presetName, String notice) {
+      this.playerUuid = playerUuid;
+      this.presetName = presetName;
+      this.notice = notice;
+    }
+  }
 }
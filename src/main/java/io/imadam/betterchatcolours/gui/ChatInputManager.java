@@ -3,16 +3,19 @@ package io.imadam.betterchatcolours.gui;
 import io.imadam.betterchatcolours.BetterChatColours;
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.format.NamedTextColor;
+import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.Listener;
 import org.bukkit.event.player.AsyncPlayerChatEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
 import org.bukkit.plugin.java.JavaPlugin;
 
-import java.util.HashMap;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Consumer;
 
 public class ChatInputManager implements Listener {
@@ -42,11 +45,25 @@ public class ChatInputManager implements Listener {
     }
   }
 
-  private static final Map<UUID, InputSession> activeSessions = new HashMap<>();
+  // Written from menu clicks, read and claimed on async chat threads
+  private static final Map<UUID, InputSession> activeSessions = new ConcurrentHashMap<>();
+  private static final ExpiryWheel expiryWheel = new ExpiryWheel(64);
+  private static long timeoutSeconds = 120;
+
+  public ChatInputManager() {
+    BetterChatColours plugin = JavaPlugin.getPlugin(BetterChatColours.class);
+    timeoutSeconds = Math.max(1, plugin.getConfig().getLong("chat-input.timeout-seconds", 120));
+    plugin.getTaskScheduler().runGlobalTimer(expiryWheel::advance, 20L, 20L);
+  }
+
+  private static void startSession(Player player, InputSession session) {
+    UUID playerId = player.getUniqueId();
+    activeSessions.put(playerId, session);
+    expiryWheel.schedule(playerId, session, timeoutSeconds);
+  }
 
   public static void requestPresetName(Player player, Consumer<String> callback, Runnable cancelCallback) {
-    activeSessions.put(player.getUniqueId(),
-        new InputSession(InputType.PRESET_NAME, callback, cancelCallback, null, null, -1));
+    startSession(player, new InputSession(InputType.PRESET_NAME, callback, cancelCallback, null, null, -1));
 
     player.sendMessage(Component.text("━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━", NamedTextColor.GOLD));
     player.sendMessage(Component.text("[INPUT] Enter the preset name in chat:", NamedTextColor.YELLOW));
@@ -57,8 +74,7 @@ public class ChatInputManager implements Listener {
 
   public static void requestHexColor(Player player, String presetName, List<String> colors,
       Consumer<String> callback, Runnable cancelCallback) {
-    activeSessions.put(player.getUniqueId(),
-        new InputSession(InputType.HEX_COLOR, callback, cancelCallback, presetName, colors, -1));
+    startSession(player, new InputSession(InputType.HEX_COLOR, callback, cancelCallback, presetName, colors, -1));
 
     player.sendMessage(Component.text("━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━", NamedTextColor.GOLD));
     player.sendMessage(Component.text("[COLOR] Enter a hex color in chat:", NamedTextColor.YELLOW));
@@ -69,7 +85,7 @@ public class ChatInputManager implements Listener {
 
   public static void requestHexColorEdit(Player player, String presetName, List<String> colors, int colorIndex,
       Consumer<String> callback, Runnable cancelCallback) {
-    activeSessions.put(player.getUniqueId(),
+    startSession(player,
         new InputSession(InputType.HEX_COLOR, callback, cancelCallback, presetName, colors, colorIndex));
 
     String currentColor = colors.get(colorIndex);
@@ -83,8 +99,7 @@ public class ChatInputManager implements Listener {
 
   public static void requestPermission(Player player, String presetName, List<String> colors,
       Consumer<String> callback, Runnable cancelCallback) {
-    activeSessions.put(player.getUniqueId(),
-        new InputSession(InputType.PERMISSION, callback, cancelCallback, presetName, colors, -1));
+    startSession(player, new InputSession(InputType.PERMISSION, callback, cancelCallback, presetName, colors, -1));
 
     player.sendMessage(Component.text("━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━", NamedTextColor.GOLD));
     player.sendMessage(Component.text("[PERM] Enter permission node (optional):", NamedTextColor.YELLOW));
@@ -100,36 +115,41 @@ public class ChatInputManager implements Listener {
     Player player = event.getPlayer();
     UUID playerId = player.getUniqueId();
 
-    if (!activeSessions.containsKey(playerId)) {
+    // Almost every message has no session; a plain lock-free read is all it costs
+    InputSession session = activeSessions.get(playerId);
+    if (session == null) {
+      return;
+    }
+    // Claim it, so a second message sent right after can't answer the same prompt
+    if (!activeSessions.remove(playerId, session)) {
       return;
     }
 
     // Cancel the chat event so the message doesn't appear in chat
     event.setCancelled(true);
 
-    InputSession session = activeSessions.remove(playerId);
     String message = event.getMessage().trim();
 
     // Handle cancel
     if (message.equalsIgnoreCase("cancel")) {
       player.sendMessage(Component.text("[CANCELLED] Input cancelled.", NamedTextColor.RED));
-      // Run cancel callback on main thread
+      // Run cancel callback on the player's thread
       BetterChatColours plugin = JavaPlugin.getPlugin(BetterChatColours.class);
-      plugin.getServer().getScheduler().runTask(plugin, session.cancelCallback);
+      plugin.getTaskScheduler().runForEntity(player, session.cancelCallback);
       return;
     }
 
     // Validate input based on type
     String validatedInput = validateInput(session.type, message, player);
     if (validatedInput == null) {
-      // Re-add session for retry
-      activeSessions.put(playerId, session);
+      // Re-add session for retry, unless a new prompt was opened meanwhile
+      activeSessions.putIfAbsent(playerId, session);
       return;
     }
 
-    // Run callback on main thread
+    // Run callback on the player's thread
     BetterChatColours plugin = JavaPlugin.getPlugin(BetterChatColours.class);
-    plugin.getServer().getScheduler().runTask(plugin, () -> session.callback.accept(validatedInput));
+    plugin.getTaskScheduler().runForEntity(player, () -> session.callback.accept(validatedInput));
   }
 
   private String validateInput(InputType type, String input, Player player) {
@@ -205,7 +225,65 @@ public class ChatInputManager implements Listener {
     }
   }
 
+  @EventHandler
+  public void onPlayerQuit(PlayerQuitEvent event) {
+    activeSessions.remove(event.getPlayer().getUniqueId());
+  }
+
   public static void cancelSession(Player player) {
     activeSessions.remove(player.getUniqueId());
   }
+
+  /**
+   * Hashed timing wheel with one slot per second. Scheduling and expiring are
+   * constant time per session, and answered or cancelled sessions are simply
+   * skipped when their slot comes round instead of being unscheduled.
+   * The slots are guarded by the wheel's lock.
+   */
+  private static final class ExpiryWheel {
+    private final List<Expiry>[] slots;
+    private long now;
+
+    @SuppressWarnings("unchecked")
+    private ExpiryWheel(int size) {
+      slots = new List[size];
+      for (int i = 0; i < size; i++) {
+        slots[i] = new ArrayList<>();
+      }
+    }
+
+    private synchronized void schedule(UUID playerId, InputSession session, long delaySeconds) {
+      long deadline = now + delaySeconds;
+      slots[(int) (deadline % slots.length)].add(new Expiry(playerId, session, deadline));
+    }
+
+    private void advance() {
+      List<Expiry> due = new ArrayList<>();
+      synchronized (this) {
+        now++;
+        // Deadlines more than one turn away stay for a later pass
+        slots[(int) (now % slots.length)].removeIf(expiry -> expiry.deadline <= now && due.add(expiry));
+      }
+      for (Expiry expiry : due) {
+        if (activeSessions.remove(expiry.playerId, expiry.session)) {
+          Player player = Bukkit.getPlayer(expiry.playerId);
+          if (player != null) {
+            player.sendMessage(Component.text("[EXPIRED] Input timed out.", NamedTextColor.RED));
+          }
+        }
+      }
+    }
+  }
+
+  private static final class Expiry {
+    private final UUID playerId;
+    private final InputSession session;
+    private final long deadline;
+
+    private Expiry(UUID playerId, InputSession session, long deadline) {
+      this.playerId = playerId;
+      this.session = session;
+      this.deadline = deadline;
+    }
+  }
 }
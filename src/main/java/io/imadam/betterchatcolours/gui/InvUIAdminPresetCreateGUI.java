@@ -2,6 +2,7 @@ package io.imadam.betterchatcolours.gui;
 
 import io.imadam.betterchatcolours.BetterChatColours;
 import io.imadam.betterchatcolours.gui.items.preset.AddColorItem;
+import io.imadam.betterchatcolours.render.GradientRenderer;
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.format.NamedTextColor;
 import net.kyori.adventure.text.minimessage.MiniMessage;
@@ -202,19 +203,23 @@ public class InvUIAdminPresetCreateGUI {
         private final List<String> colors;
         private final int index;
         private final boolean isEditMode;
+        private final Material dyeColor;
 
         public ColorSlotItem(String presetName, List<String> colors, int index, boolean isEditMode) {
             this.presetName = presetName;
             this.colors = colors;
             this.index = index;
             this.isEditMode = isEditMode;
+
+            // Parsed once here rather than on every render
+            int[] rgb = GradientRenderer.parseColors(List.of(colors.get(index)));
+            this.dyeColor = rgb == null ? Material.WHITE_DYE : GUIUtils.getClosestDyeColor(rgb[0]);
         }
 
         @Override
         public ItemProvider getItemProvider() {
             String hexColor = colors.get(index);
-            Material dyeColor = GUIUtils.getClosestDyeColor(hexColor);
-            
+
             return new ItemBuilder(dyeColor)
                     .setDisplayName("§f§lColor " + (index + 1))
                     .addLoreLines(
@@ -22,28 +22,17 @@ import xyz.xenondevs.invui.window.Window;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
 
 public class InvUIAdminPresetEditGUI {
 
     public static void open(Player player) {
         BetterChatColours plugin = JavaPlugin.getPlugin(BetterChatColours.class);
-        Map<String, GlobalPresetData> allPresets = plugin.getGlobalPresetManager().getAllPresets();
-
-        // Create preset items and sort by color count (descending) then alphabetically
-        List<Item> presetItems = allPresets.values().stream()
-                .sorted((a, b) -> {
-                  // First sort by color count (descending - higher numbers first)
-                  int colorCountCompare = Integer.compare(b.getColors().size(), a.getColors().size());
-                  if (colorCountCompare != 0) {
-                    return colorCountCompare;
-                  }
-                  // Then sort alphabetically (ascending)
-                  return a.getName().compareToIgnoreCase(b.getName());
-                })
-                .map(EditablePresetItem::new)
-                .collect(Collectors.toList());
+        // Already sorted by color count (descending) then alphabetically; items are shared between opens
+        List<GlobalPresetData> catalog = plugin.getGlobalPresetManager().getCatalog();
+        List<Item> presetItems = new ArrayList<>(catalog.size());
+        for (GlobalPresetData preset : catalog) {
+            presetItems.add(preset.getMenuItem("editor", EditablePresetItem::new));
+        }
 
         Structure structure = new Structure(
                 "# # # # # # # # #",
@@ -84,14 +73,13 @@ public class InvUIAdminPresetEditGUI {
 
         @Override
         public ItemProvider getItemProvider() {
-            // Create gradient preview for display name using the same method as PresetItem
-            String gradientName = applyGradientToText(preset.getName());
-            
-            // Get the material based on the first color in the gradient
-            Material iconMaterial = getIconMaterial();
-            
-            return new ItemBuilder(iconMaterial)
-                    .setDisplayName(gradientName)
+            // Built once per preset, same display name as PresetItem
+            return preset.getIcon("editor", EditablePresetItem::createIcon);
+        }
+
+        private static ItemProvider createIcon(GlobalPresetData preset) {
+            return new ItemBuilder(GUIUtils.getIconMaterial(preset))
+                    .setDisplayName(preset.getDisplayName())
                     .addLoreLines(
                             "§7Colors: §f" + preset.getColors().size(),
                             "§7Permission: §f" + preset.getPermission(),
@@ -101,31 +89,6 @@ public class InvUIAdminPresetEditGUI {
                     );
         }
 
-        private Material getIconMaterial() {
-            if (preset.getColors() == null || preset.getColors().isEmpty()) {
-                return Material.PAPER; // Fallback for presets with no colors
-            }
-            
-            // Use the first color in the gradient to determine the icon
-            String firstColor = preset.getColors().get(0);
-            return GUIUtils.getClosestConcreteColor(firstColor);
-        }
-
-        private String applyGradientToText(String text) {
-            if (preset.getColors() == null || preset.getColors().isEmpty()) {
-                return "§e§l" + text;
-            }
-
-            try {
-                String gradientMessage = preset.getGradientTag() + text + preset.getClosingTag();
-                var component = net.kyori.adventure.text.minimessage.MiniMessage.miniMessage().deserialize(gradientMessage);
-                return net.kyori.adventure.text.serializer.legacy.LegacyComponentSerializer.legacySection().serialize(component);
-            } catch (Exception e) {
-                // Fallback to yellow text if gradient parsing fails
-                return "§e§l" + text;
-            }
-        }
-
         @Override
         public void handleClick(org.bukkit.event.inventory.ClickType clickType, Player player, org.bukkit.event.inventory.InventoryClickEvent event) {
             if (clickType.isLeftClick()) {
@@ -22,8 +22,8 @@ import xyz.xenondevs.invui.item.impl.controlitem.PageItem;
 import xyz.xenondevs.invui.window.Window;
 import xyz.xenondevs.inventoryaccess.component.ComponentWrapper;
 
+import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
 
 public class PresetSelectionGUI {
 
@@ -34,29 +34,15 @@ public class PresetSelectionGUI {
     // Check if player's current preset is still valid
     plugin.getUserDataManager().checkAndUnequipInvalidPreset(player);
 
-    // Get available presets for this player
-    List<GlobalPresetData> availablePresets = plugin.getGlobalPresetManager()
-        .getAllPresets()
-        .values()
-        .stream()
-        .filter(preset -> preset.getPermission() == null ||
-            preset.getPermission().isEmpty() ||
-            player.hasPermission(preset.getPermission()))
-        .sorted((a, b) -> {
-          // First sort by color count (descending - higher numbers first)
-          int colorCountCompare = Integer.compare(b.getColors().size(), a.getColors().size());
-          if (colorCountCompare != 0) {
-            return colorCountCompare;
-          }
-          // Then sort alphabetically (ascending)
-          return a.getName().compareToIgnoreCase(b.getName());
-        })
-        .collect(Collectors.toList());
-
-    // Convert to PresetItems (as Items)
-    List<Item> presetItems = availablePresets.stream()
-        .map(PresetItem::new)
-        .collect(Collectors.toList());
+    // The catalog is already sorted by color count then name; only the permission check is per player
+    List<GlobalPresetData> catalog = plugin.getGlobalPresetManager().getCatalog();
+    List<Item> presetItems = new ArrayList<>(catalog.size());
+    for (GlobalPresetData preset : catalog) {
+      String permission = preset.getPermission();
+      if (permission.isEmpty() || player.hasPermission(permission)) {
+        presetItems.add(preset.getMenuItem("selection", PresetItem::new));
+      }
+    }
 
     Structure structure = new Structure(
         "# # # # # # # # #",
@@ -1,5 +1,6 @@
 package io.imadam.betterchatcolours.gui.items;
 
+import io.imadam.betterchatcolours.BetterChatColours;
 import io.imadam.betterchatcolours.gui.MainMenuGUI;
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.format.NamedTextColor;
@@ -7,6 +8,7 @@ import org.bukkit.Material;
 import org.bukkit.entity.Player;
 import org.bukkit.event.inventory.ClickType;
 import org.bukkit.event.inventory.InventoryClickEvent;
+import org.bukkit.plugin.java.JavaPlugin;
 import xyz.xenondevs.invui.item.ItemProvider;
 import xyz.xenondevs.invui.item.builder.ItemBuilder;
 import xyz.xenondevs.invui.item.impl.AbstractItem;
@@ -24,10 +26,7 @@ public class BackToMainItem extends AbstractItem {
   public void handleClick(ClickType clickType, Player player, InventoryClickEvent event) {
     player.closeInventory();
     // Small delay to ensure inventory closes before opening new one
-    org.bukkit.Bukkit.getScheduler().runTaskLater(
-        org.bukkit.plugin.java.JavaPlugin.getPlugin(io.imadam.betterchatcolours.BetterChatColours.class),
-        () -> MainMenuGUI.open(player),
-        1L
-    );
+    JavaPlugin.getPlugin(BetterChatColours.class).getTaskScheduler()
+        .runForEntityLater(player, () -> MainMenuGUI.open(player), 1L);
   }
 }
@@ -5,9 +5,6 @@ import io.imadam.betterchatcolours.data.GlobalPresetData;
 import io.imadam.betterchatcolours.gui.GUIUtils;
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.format.NamedTextColor;
-import net.kyori.adventure.text.minimessage.MiniMessage;
-import net.kyori.adventure.text.serializer.legacy.LegacyComponentSerializer;
-import org.bukkit.Material;
 import org.bukkit.entity.Player;
 import org.bukkit.event.inventory.ClickType;
 import org.bukkit.event.inventory.InventoryClickEvent;
@@ -26,44 +23,19 @@ public class PresetItem extends AbstractItem {
 
   @Override
   public ItemProvider getItemProvider() {
-    String gradientName = applyGradientToText(preset.getName());
-    
-    // Get the material based on the first color in the gradient
-    Material iconMaterial = getIconMaterial();
+    // Built once per preset, so page turns and refreshes reuse it
+    return preset.getIcon("selection", PresetItem::createIcon);
+  }
 
-    return new ItemBuilder(iconMaterial)
-        .setDisplayName(gradientName)
+  private static ItemProvider createIcon(GlobalPresetData preset) {
+    return new ItemBuilder(GUIUtils.getIconMaterial(preset))
+        .setDisplayName(preset.getDisplayName())
         .addLoreLines(
             "§7Colors: " + preset.getColors().size(),
             "",
             "§aClick to equip this preset");
   }
 
-  private Material getIconMaterial() {
-    if (preset.getColors() == null || preset.getColors().isEmpty()) {
-      return Material.PAPER; // Fallback for presets with no colors
-    }
-    
-    // Use the first color in the gradient to determine the icon
-    String firstColor = preset.getColors().get(0);
-    return GUIUtils.getClosestConcreteColor(firstColor);
-  }
-
-  private String applyGradientToText(String text) {
-    if (preset.getColors() == null || preset.getColors().isEmpty()) {
-      return "§e§l" + text;
-    }
-
-    try {
-      String gradientMessage = preset.getGradientTag() + text + preset.getClosingTag();
-      var component = MiniMessage.miniMessage().deserialize(gradientMessage);
-      return LegacyComponentSerializer.legacySection().serialize(component);
-    } catch (Exception e) {
-      // Fallback to yellow text if gradient parsing fails
-      return "§e§l" + text;
-    }
-  }
-
   @Override
   public void handleClick(ClickType clickType, Player player, InventoryClickEvent event) {
     // Equip this preset for the player
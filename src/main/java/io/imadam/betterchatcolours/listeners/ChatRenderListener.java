@@ -0,0 +1,51 @@
+package io.imadam.betterchatcolours.listeners;
+
+import io.imadam.betterchatcolours.BetterChatColours;
+import io.imadam.betterchatcolours.data.GlobalPresetData;
+import io.imadam.betterchatcolours.render.ComponentRenderer;
+import io.papermc.paper.event.player.AsyncChatEvent;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.TextComponent;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.plugin.java.JavaPlugin;
+
+/**
+ * Optional built-in chat integration for servers without a chat plugin that
+ * resolves our placeholders. Applies the equipped preset directly to the message
+ * component, so the message never round-trips through legacy strings.
+ */
+public class ChatRenderListener implements Listener {
+
+  private final BetterChatColours plugin;
+
+  public ChatRenderListener() {
+    this.plugin = JavaPlugin.getPlugin(BetterChatColours.class);
+  }
+
+  @EventHandler(priority = EventPriority.HIGH, ignoreCancelled = true)
+  public void onChat(AsyncChatEvent event) {
+    if (!plugin.isChatRendererEnabled()) {
+      return;
+    }
+
+    // Only plain, unstyled messages are recoloured; anything already formatted is left alone
+    Component message = event.message();
+    if (!(message instanceof TextComponent) || !message.children().isEmpty() || message.color() != null) {
+      return;
+    }
+
+    String content = ((TextComponent) message).content();
+    if (content.isEmpty()) {
+      return;
+    }
+
+    GlobalPresetData preset = plugin.getUserDataManager().getActivePreset(event.getPlayer());
+    if (preset == null || preset.getRgb() == null) {
+      return;
+    }
+
+    event.message(plugin.getComponentCache().get(preset, content, ComponentRenderer::render));
+  }
+}
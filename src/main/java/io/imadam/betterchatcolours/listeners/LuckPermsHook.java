@@ -0,0 +1,35 @@
+package io.imadam.betterchatcolours.listeners;
+
+import io.imadam.betterchatcolours.BetterChatColours;
+import net.luckperms.api.LuckPermsProvider;
+import net.luckperms.api.event.EventSubscription;
+import net.luckperms.api.event.user.UserDataRecalculateEvent;
+import org.bukkit.entity.Player;
+
+/**
+ * Re-checks a player's equipped preset whenever LuckPerms recalculates their
+ * permissions, however the change was made. Only loaded when LuckPerms is installed.
+ */
+public class LuckPermsHook {
+
+  private final EventSubscription<UserDataRecalculateEvent> subscription;
+
+  public LuckPermsHook(BetterChatColours plugin) {
+    this.subscription = LuckPermsProvider.get().getEventBus().subscribe(plugin, UserDataRecalculateEvent.class,
+        event -> {
+          // Fired on LuckPerms' own threads, also for players who aren't online
+          Player player = plugin.getServer().getPlayer(event.getUser().getUniqueId());
+          if (player != null) {
+            plugin.getTaskScheduler().runForEntity(player, () -> {
+              if (player.isOnline()) {
+                plugin.getUserDataManager().checkAndUnequipInvalidPreset(player);
+              }
+            });
+          }
+        });
+  }
+
+  public void close() {
+    subscription.close();
+  }
+}
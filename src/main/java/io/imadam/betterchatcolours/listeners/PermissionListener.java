@@ -6,12 +6,14 @@ import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
 import org.bukkit.event.player.PlayerJoinEvent;
-import org.bukkit.event.player.PlayerCommandPreprocessEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
 import org.bukkit.plugin.java.JavaPlugin;
 
 /**
  * Listener to handle permission changes and ensure players
  * don't keep presets they no longer have permission for.
+ * Permission changes are picked up through {@link LuckPermsHook} when LuckPerms
+ * is installed, and by a periodic re-check of every online player.
  */
 public class PermissionListener implements Listener {
 
@@ -19,6 +21,12 @@ public class PermissionListener implements Listener {
 
   public PermissionListener() {
     this.plugin = JavaPlugin.getPlugin(BetterChatColours.class);
+
+    long recheckTicks = Math.max(0, plugin.getConfig().getLong("permissions.recheck-interval-seconds", 60)) * 20L;
+    if (recheckTicks > 0) {
+      plugin.getTaskScheduler().runGlobalTimer(plugin.getUserDataManager()::refreshOnlinePlayers,
+          recheckTicks, recheckTicks);
+    }
   }
 
   /**
@@ -27,37 +35,23 @@ public class PermissionListener implements Listener {
   @EventHandler(priority = EventPriority.MONITOR)
   public void onPlayerJoin(PlayerJoinEvent event) {
     Player player = event.getPlayer();
-    
+
+    // Resolve the preset right away so chat renders immediately, without unequipping yet
+    plugin.getUserDataManager().refreshActivePreset(player);
+
     // Check permissions after a short delay to ensure all permissions are loaded
-    plugin.getServer().getScheduler().runTaskLater(plugin, () -> {
-      plugin.getUserDataManager().checkAndUnequipInvalidPreset(player);
+    plugin.getTaskScheduler().runForEntityLater(player, () -> {
+      if (player.isOnline()) {
+        plugin.getUserDataManager().checkAndUnequipInvalidPreset(player);
+      }
     }, 20L); // 1 second delay
   }
 
   /**
-   * Check permissions after certain commands that might change permissions
-   * This catches cases where permissions are changed via commands like /lp, /pex, etc.
+   * Drop the cached preset state when player leaves
    */
   @EventHandler(priority = EventPriority.MONITOR)
-  public void onPlayerCommandPreprocess(PlayerCommandPreprocessEvent event) {
-    if (event.isCancelled()) {
-      return;
-    }
-
-    String command = event.getMessage().toLowerCase();
-    
-    // Check if this looks like a permission-related command
-    if (command.startsWith("/lp ") || command.startsWith("/luckperms ") ||
-        command.startsWith("/pex ") || command.startsWith("/permissions ") ||
-        command.startsWith("/group ") || command.startsWith("/user ") ||
-        command.startsWith("/perms ")) {
-      
-      Player player = event.getPlayer();
-      
-      // Check permissions after a short delay to allow the command to process
-      plugin.getServer().getScheduler().runTaskLater(plugin, () -> {
-        plugin.getUserDataManager().checkAndUnequipInvalidPreset(player);
-      }, 5L); // 0.25 second delay
-    }
+  public void onPlayerQuit(PlayerQuitEvent event) {
+    plugin.getUserDataManager().forgetPlayer(event.getPlayer().getUniqueId());
   }
 }
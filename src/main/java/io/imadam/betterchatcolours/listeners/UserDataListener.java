@@ -0,0 +1,31 @@
+package io.imadam.betterchatcolours.listeners;
+
+import io.imadam.betterchatcolours.BetterChatColours;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.AsyncPlayerPreLoginEvent;
+import org.bukkit.plugin.java.JavaPlugin;
+
+/**
+ * Loads a player's data before they join when storage.lazy-loading is enabled.
+ */
+public class UserDataListener implements Listener {
+
+  private final BetterChatColours plugin;
+
+  public UserDataListener() {
+    this.plugin = JavaPlugin.getPlugin(BetterChatColours.class);
+  }
+
+  /**
+   * Runs off the main thread, so waiting on storage here doesn't stall the server
+   */
+  @EventHandler(priority = EventPriority.MONITOR)
+  public void onAsyncPlayerPreLogin(AsyncPlayerPreLoginEvent event) {
+    if (event.getLoginResult() != AsyncPlayerPreLoginEvent.Result.ALLOWED) {
+      return;
+    }
+    plugin.getUserDataManager().preloadPlayer(event.getUniqueId());
+  }
+}
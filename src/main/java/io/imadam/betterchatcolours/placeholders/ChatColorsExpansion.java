@@ -2,6 +2,9 @@ package io.imadam.betterchatcolours.placeholders;
 
 import io.imadam.betterchatcolours.BetterChatColours;
 import io.imadam.betterchatcolours.data.GlobalPresetData;
+import io.imadam.betterchatcolours.render.GradientRenderer;
+import io.imadam.betterchatcolours.render.LegacyWriter;
+import io.imadam.betterchatcolours.render.RenderMode;
 import me.clip.placeholderapi.expansion.PlaceholderExpansion;
 import net.kyori.adventure.text.minimessage.MiniMessage;
 import net.kyori.adventure.text.serializer.legacy.LegacyComponentSerializer;
@@ -40,55 +43,38 @@ public class ChatColorsExpansion extends PlaceholderExpansion {
 
   @Override
   public String onPlaceholderRequest(Player player, @NotNull String identifier) {
-    if (player == null) {
-      return "";
+    // Unknown identifiers are left untouched by PlaceholderAPI instead of being rendered
+    PlaceholderType type = PlaceholderType.of(identifier);
+    if (type == PlaceholderType.UNKNOWN) {
+      return null;
     }
 
-    // Check if player's current preset is still valid (permission check)
-    plugin.getUserDataManager().checkAndUnequipInvalidPreset(player);
-
-    String equippedPreset = plugin.getUserDataManager().getEquippedPreset(player);
-    if (equippedPreset == null || equippedPreset.isEmpty()) {
-      // For process: placeholders, return the original message when no preset is equipped
-      if (identifier.toLowerCase().startsWith("process:")) {
-        return identifier.substring(8); // Return the message without the "process:" prefix
-      }
+    if (player == null) {
       return "";
     }
 
-    GlobalPresetData preset = plugin.getGlobalPresetManager().getPreset(equippedPreset);
+    // Validity is maintained on join, permission and preset changes, so this is just a read
+    GlobalPresetData preset = plugin.getUserDataManager().getActivePreset(player);
     if (preset == null) {
-      // For process: placeholders, return the original message when preset is not found
-      if (identifier.toLowerCase().startsWith("process:")) {
-        return identifier.substring(8); // Return the message without the "process:" prefix
-      }
-      return "";
+      // For process: placeholders, return the original message when no preset is equipped
+      return type == PlaceholderType.PROCESS ? PlaceholderType.payload(identifier) : "";
     }
 
-    switch (identifier.toLowerCase()) {
-      case "before":
+    switch (type) {
+      case BEFORE:
         return preset.getGradientTag();
 
-      case "after":
+      case AFTER:
         return preset.getClosingTag();
 
-      case "preset":
+      case PRESET:
         return preset.getName();
 
-      default:
-        // Handle process:MESSAGE format - but we need to handle this differently
-        if (identifier.toLowerCase().startsWith("process:")) {
-          String message = identifier.substring(8); // Remove "process:" prefix
-          return processMessage(preset, message);
-        }
-
-        // Handle direct message processing with RelationalPlaceholder-style approach
-        // This allows for %chatcolor_<message>% format
-        if (!identifier.isEmpty()) {
-          return processMessage(preset, identifier);
-        }
+      case PROCESS:
+        return processMessage(preset, PlaceholderType.payload(identifier));
 
-        return "";
+      default:
+        return null;
     }
   }
 
@@ -107,6 +93,22 @@ public class ChatColorsExpansion extends PlaceholderExpansion {
       return preset.getGradientTag() + "{message}" + preset.getClosingTag();
     }
 
+    // The same line is usually resolved several times (chat, relays, logging)
+    return plugin.getRenderCache().get(preset, message, this::renderMessage);
+  }
+
+  private String renderMessage(GlobalPresetData preset, String message) {
+    // Plain text is rendered directly from the RGB stops; markup still needs MiniMessage
+    if (plugin.getRenderMode() == RenderMode.NATIVE && GradientRenderer.isPlainText(message)) {
+      int[] stops = preset.getRgb();
+      if (stops != null) {
+        if (stops.length == 1) {
+          return LegacyWriter.write(preset.getLegacyPrefix(), message);
+        }
+        return GradientRenderer.render(preset.getRamp(message.codePointCount(0, message.length())), message);
+      }
+    }
+
     // If we have an actual message (not a placeholder), process it normally
     String gradientMessage = preset.getGradientTag() + message + preset.getClosingTag();
 
@@ -0,0 +1,50 @@
+package io.imadam.betterchatcolours.placeholders;
+
+import java.util.Map;
+
+/**
+ * Classification of a {@code %chatcolor_<identifier>%} request, worked out once per
+ * request without lowercasing the identifier or copying the message payload.
+ */
+enum PlaceholderType {
+  BEFORE,
+  AFTER,
+  PRESET,
+  PROCESS,
+  UNKNOWN;
+
+  static final String PROCESS_PREFIX = "process:";
+
+  // Fixed identifiers as they are normally written, so the common case is one lookup
+  private static final Map<String, PlaceholderType> FIXED = Map.of(
+      "before", BEFORE,
+      "after", AFTER,
+      "preset", PRESET);
+
+  static PlaceholderType of(String identifier) {
+    PlaceholderType fixed = FIXED.get(identifier);
+    if (fixed != null) {
+      return fixed;
+    }
+
+    if (identifier.regionMatches(true, 0, PROCESS_PREFIX, 0, PROCESS_PREFIX.length())) {
+      return PROCESS;
+    }
+
+    // Same identifiers in any other case
+    for (Map.Entry<String, PlaceholderType> entry : FIXED.entrySet()) {
+      if (identifier.equalsIgnoreCase(entry.getKey())) {
+        return entry.getValue();
+      }
+    }
+
+    return UNKNOWN;
+  }
+
+  /**
+   * The message part of a {@link #PROCESS} identifier.
+   */
+  static String payload(String identifier) {
+    return identifier.substring(PROCESS_PREFIX.length());
+  }
+}
@@ -0,0 +1,47 @@
+package io.imadam.betterchatcolours.render;
+
+import io.imadam.betterchatcolours.data.GlobalPresetData;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.TextComponent;
+import net.kyori.adventure.text.format.TextColor;
+
+/**
+ * Renders presets straight to Adventure components, for the built-in chat
+ * renderer. Colours come from the same cached ramps as the legacy path, and runs
+ * of code points with the same colour share one child component.
+ */
+public final class ComponentRenderer {
+
+  private ComponentRenderer() {
+  }
+
+  /**
+   * Renders the message with the preset's colours. The preset must have valid
+   * colours ({@link GlobalPresetData#getRgb()} not null).
+   */
+  public static Component render(GlobalPresetData preset, String message) {
+    int[] stops = preset.getRgb();
+    if (stops.length == 1 || message.isEmpty()) {
+      return Component.text(message, TextColor.color(stops[0]));
+    }
+
+    GradientRamp ramp = preset.getRamp(message.codePointCount(0, message.length()));
+    TextComponent.Builder builder = Component.text();
+
+    int runStart = 0;
+    int runColor = ramp.colorAt(0);
+    int index = 0;
+    for (int i = 0; i < message.length();) {
+      int color = ramp.colorAt(index++);
+      if (color != runColor) {
+        builder.append(Component.text(message.substring(runStart, i), TextColor.color(runColor)));
+        runStart = i;
+        runColor = color;
+      }
+      i += Character.charCount(message.codePointAt(i));
+    }
+    builder.append(Component.text(message.substring(runStart), TextColor.color(runColor)));
+
+    return builder.build();
+  }
+}
@@ -0,0 +1,72 @@
+package io.imadam.betterchatcolours.render;
+
+/**
+ * The colours and pre-encoded legacy colour codes of a gradient spread over a
+ * fixed number of code points. Rendering a message of that length is then just
+ * interleaving the stored codes with the message characters.
+ */
+public final class GradientRamp {
+
+  private final int[] colors;
+  private final char[] codes;
+  private final int[] offsets;
+
+  private GradientRamp(int[] colors, char[] codes, int[] offsets) {
+    this.colors = colors;
+    this.codes = codes;
+    this.offsets = offsets;
+  }
+
+  /**
+   * Interpolates {@code stops} over {@code length} code points and encodes the
+   * colour code written before each of them.
+   */
+  public static GradientRamp build(int[] stops, int length) {
+    int[] colors = new int[length];
+    int[] offsets = new int[length + 1];
+    StringBuilder codes = new StringBuilder(length * 14);
+    double multiplier = length == 1 ? 0 : (double) (stops.length - 1) / (length - 1);
+
+    int lastNamed = -1;
+    for (int i = 0; i < length; i++) {
+      colors[i] = GradientRenderer.colorAt(stops, i * multiplier);
+      lastNamed = GradientRenderer.appendColor(codes, colors[i], lastNamed);
+      offsets[i + 1] = codes.length();
+    }
+
+    char[] encoded = new char[codes.length()];
+    codes.getChars(0, encoded.length, encoded, 0);
+    return new GradientRamp(colors, encoded, offsets);
+  }
+
+  public int length() {
+    return colors.length;
+  }
+
+  /**
+   * The packed RGB colour of the code point at {@code index}.
+   */
+  public int colorAt(int index) {
+    return colors[index];
+  }
+
+  /**
+   * Total number of code characters across the whole ramp.
+   */
+  public int codeLength() {
+    return codes.length;
+  }
+
+  /**
+   * Copies the colour code written before the code point at {@code index} into
+   * {@code dest} at {@code pos}.
+   *
+   * @return the position after the copied code
+   */
+  public int copyCode(int index, char[] dest, int pos) {
+    int start = offsets[index];
+    int count = offsets[index + 1] - start;
+    System.arraycopy(codes, start, dest, pos, count);
+    return pos + count;
+  }
+}
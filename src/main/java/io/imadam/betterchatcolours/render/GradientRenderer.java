@@ -0,0 +1,145 @@
+package io.imadam.betterchatcolours.render;
+
+import java.util.List;
+
+/**
+ * Renders gradients straight to legacy section-sign text without going through
+ * MiniMessage. The interpolation and the colour-code output mirror Adventure's
+ * gradient tag and Paper's legacy serializer, so plain text renders to exactly
+ * the same string as the MiniMessage route.
+ */
+public final class GradientRenderer {
+
+  private static final char SECTION_CHAR = '§';
+  private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+  // The 16 named colours in legacy code order. The legacy serializer writes these
+  // as a single code instead of the §x hex form.
+  private static final int[] NAMED_COLORS = {
+      0x000000, 0x0000AA, 0x00AA00, 0x00AAAA, 0xAA0000, 0xAA00AA, 0xFFAA00, 0xAAAAAA,
+      0x555555, 0x5555FF, 0x55FF55, 0x55FFFF, 0xFF5555, 0xFF55FF, 0xFFFF55, 0xFFFFFF
+  };
+
+  private GradientRenderer() {
+  }
+
+  /**
+   * Parses a list of {@code #rrggbb} colours into packed RGB values.
+   *
+   * @return the packed colours, or null if any entry is not a valid hex colour
+   */
+  public static int[] parseColors(List<String> colors) {
+    if (colors == null || colors.isEmpty()) {
+      return null;
+    }
+
+    int[] rgb = new int[colors.size()];
+    for (int i = 0; i < rgb.length; i++) {
+      String hex = colors.get(i);
+      if (hex == null || hex.length() != 7 || hex.charAt(0) != '#') {
+        return null;
+      }
+      try {
+        rgb[i] = Integer.parseInt(hex.substring(1), 16);
+      } catch (NumberFormatException e) {
+        return null;
+      }
+    }
+    return rgb;
+  }
+
+  /**
+   * Whether the message can be rendered natively. Anything that MiniMessage would
+   * treat as markup (tags or escapes) has to go through the MiniMessage route.
+   */
+  public static boolean isPlainText(String message) {
+    return message.indexOf('<') < 0 && message.indexOf('\\') < 0;
+  }
+
+  /**
+   * Renders the message with the given colour stops as legacy text.
+   * One stop renders as a solid colour, two or more as a gradient.
+   */
+  public static String render(int[] stops, String message) {
+    if (message.isEmpty()) {
+      return "";
+    }
+
+    if (stops.length == 1) {
+      return LegacyWriter.write(legacyCode(stops[0]), message);
+    }
+
+    return render(GradientRamp.build(stops, message.codePointCount(0, message.length())), message);
+  }
+
+  /**
+   * Renders the message with a ramp built for its code point count.
+   */
+  public static String render(GradientRamp ramp, String message) {
+    return LegacyWriter.write(ramp, message);
+  }
+
+  /**
+   * Interpolates the gradient at the given position in {@code [0, stops.length - 1]}.
+   */
+  public static int colorAt(int[] stops, double position) {
+    int lowUnclamped = (int) Math.floor(position);
+    int high = (int) Math.ceil(position) % stops.length;
+    int low = lowUnclamped % stops.length;
+    float t = Math.min(1.0f, Math.max(0.0f, (float) position - lowUnclamped));
+
+    int from = stops[low];
+    int to = stops[high];
+    int r = lerp(t, (from >> 16) & 0xFF, (to >> 16) & 0xFF);
+    int g = lerp(t, (from >> 8) & 0xFF, (to >> 8) & 0xFF);
+    int b = lerp(t, from & 0xFF, to & 0xFF);
+    return (r << 16) | (g << 8) | b;
+  }
+
+  /**
+   * Index of the named colour with exactly this value, or -1.
+   */
+  public static int namedIndex(int rgb) {
+    for (int i = 0; i < NAMED_COLORS.length; i++) {
+      if (NAMED_COLORS[i] == rgb) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * The legacy colour code the serializer would write for a single colour.
+   */
+  public static String legacyCode(int rgb) {
+    StringBuilder out = new StringBuilder(14);
+    appendColor(out, rgb, -1);
+    return out.toString();
+  }
+
+  /**
+   * Appends the colour code for {@code rgb}. Named colours are skipped when they
+   * repeat the previously written named colour, as the legacy serializer does.
+   *
+   * @return the named index now in effect, or -1 after a hex colour
+   */
+  static int appendColor(StringBuilder out, int rgb, int lastNamed) {
+    int named = namedIndex(rgb);
+    if (named >= 0) {
+      if (named != lastNamed) {
+        out.append(SECTION_CHAR).append(HEX_DIGITS[named]);
+      }
+      return named;
+    }
+
+    out.append(SECTION_CHAR).append('x');
+    for (int shift = 20; shift >= 0; shift -= 4) {
+      out.append(SECTION_CHAR).append(HEX_DIGITS[(rgb >> shift) & 0xF]);
+    }
+    return -1;
+  }
+
+  private static int lerp(float t, int from, int to) {
+    return Math.round(from + t * (to - from));
+  }
+}
@@ -0,0 +1,56 @@
+package io.imadam.betterchatcolours.render;
+
+/**
+ * Writes legacy output into a reusable, thread-confined char buffer so that a
+ * render allocates nothing but the final String. PlaceholderAPI requests arrive
+ * on many async chat threads, hence one buffer per thread.
+ */
+public final class LegacyWriter {
+
+  // Buffers grown past this size are used once and not kept by the thread
+  private static final int RETAINED_CAPACITY = 16384;
+  private static final ThreadLocal<char[]> BUFFER = ThreadLocal.withInitial(() -> new char[1024]);
+
+  private LegacyWriter() {
+  }
+
+  /**
+   * Writes the message with the ramp's colour code before each code point.
+   * The ramp must have been built for the message's code point count.
+   */
+  public static String write(GradientRamp ramp, String message) {
+    char[] buffer = buffer(message.length() + ramp.codeLength());
+    int pos = 0;
+    int index = 0;
+    for (int i = 0; i < message.length(); i++) {
+      char c = message.charAt(i);
+      // The low half of a surrogate pair shares the colour of its high half
+      if (!Character.isLowSurrogate(c) || i == 0 || !Character.isHighSurrogate(message.charAt(i - 1))) {
+        pos = ramp.copyCode(index++, buffer, pos);
+      }
+      buffer[pos++] = c;
+    }
+    return new String(buffer, 0, pos);
+  }
+
+  /**
+   * Writes the message behind a single colour code.
+   */
+  public static String write(String prefix, String message) {
+    char[] buffer = buffer(prefix.length() + message.length());
+    prefix.getChars(0, prefix.length(), buffer, 0);
+    message.getChars(0, message.length(), buffer, prefix.length());
+    return new String(buffer, 0, prefix.length() + message.length());
+  }
+
+  private static char[] buffer(int required) {
+    char[] buffer = BUFFER.get();
+    if (buffer.length < required) {
+      buffer = new char[Math.max(required, buffer.length * 2)];
+      if (buffer.length <= RETAINED_CAPACITY) {
+        BUFFER.set(buffer);
+      }
+    }
+    return buffer;
+  }
+}
@@ -0,0 +1,70 @@
+package io.imadam.betterchatcolours.render;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Lazily built gradient ramps for one preset, indexed by message length.
+ * Lookups are lock-free. At most {@link #MAX_RAMPS} lengths are kept; when full,
+ * a CLOCK sweep evicts a length that has not been used since the last sweep.
+ * Lengths above {@link #MAX_CACHED_LENGTH} are built on demand and not kept.
+ */
+public final class RampCache {
+
+  public static final int MAX_CACHED_LENGTH = 256;
+  public static final int MAX_RAMPS = 32;
+
+  private final int[] stops;
+  private final AtomicReferenceArray<GradientRamp> byLength = new AtomicReferenceArray<>(MAX_CACHED_LENGTH + 1);
+  // Reference bits for the CLOCK sweep; racy writes are harmless
+  private final boolean[] referenced = new boolean[MAX_CACHED_LENGTH + 1];
+  private final int[] slots = new int[MAX_RAMPS];
+  private int used;
+  private int hand;
+
+  public RampCache(int[] stops) {
+    this.stops = stops;
+  }
+
+  public GradientRamp get(int length) {
+    if (length > MAX_CACHED_LENGTH) {
+      return GradientRamp.build(stops, length);
+    }
+
+    GradientRamp ramp = byLength.get(length);
+    if (ramp != null) {
+      referenced[length] = true;
+      return ramp;
+    }
+
+    ramp = GradientRamp.build(stops, length);
+    synchronized (this) {
+      GradientRamp existing = byLength.get(length);
+      if (existing != null) {
+        return existing;
+      }
+
+      if (used < MAX_RAMPS) {
+        slots[used++] = length;
+      } else {
+        while (referenced[slots[hand]]) {
+          referenced[slots[hand]] = false;
+          hand = (hand + 1) % MAX_RAMPS;
+        }
+        byLength.set(slots[hand], null);
+        slots[hand] = length;
+        hand = (hand + 1) % MAX_RAMPS;
+      }
+      byLength.set(length, ramp);
+    }
+    return ramp;
+  }
+
+  public synchronized void clear() {
+    for (int i = 0; i < used; i++) {
+      byLength.set(slots[i], null);
+      referenced[slots[i]] = false;
+    }
+    used = 0;
+    hand = 0;
+  }
+}
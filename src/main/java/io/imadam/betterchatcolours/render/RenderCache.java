@@ -0,0 +1,233 @@
+package io.imadam.betterchatcolours.render;
+
+import io.imadam.betterchatcolours.data.GlobalPresetData;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
+import java.util.function.ToIntFunction;
+
+/**
+ * Bounded LRU cache of rendered messages, keyed by compiled preset and message text.
+ * Both the number of entries and the total weight (message length plus the weight
+ * of the rendered value, in characters) are capped.
+ * Presets are compared by identity, so an edited preset never hits entries rendered
+ * with its previous colours.
+ * <p>
+ * The cache is split into segments by key hash, each an LRU with its own lock and
+ * an equal share of the limits, so chat threads rendering different lines rarely
+ * wait on each other. Eviction is LRU within a segment.
+ */
+public final class RenderCache<V> {
+
+  private static final ThreadLocal<Key> PROBE = ThreadLocal.withInitial(Key::new);
+  private static final int MAX_SEGMENTS = 16;
+  // Segments are only added while each keeps at least this many entries
+  private static final int MIN_SEGMENT_ENTRIES = 64;
+
+  private final int maxEntries;
+  private final ToIntFunction<V> weigher;
+  private final Segment<V>[] segments;
+  private final int segmentMask;
+
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+
+  @SuppressWarnings("unchecked")
+  public RenderCache(int maxEntries, long maxWeight, ToIntFunction<V> weigher) {
+    this.maxEntries = maxEntries;
+    this.weigher = weigher;
+
+    int count = 1;
+    while (count < MAX_SEGMENTS && (long) maxEntries / (count * 2) >= MIN_SEGMENT_ENTRIES) {
+      count *= 2;
+    }
+    this.segments = new Segment[count];
+    for (int i = 0; i < count; i++) {
+      // Spread the remainder so the totals add up to the configured limits
+      segments[i] = new Segment<>(maxEntries / count + (i < maxEntries % count ? 1 : 0),
+          maxWeight / count + (i < maxWeight % count ? 1 : 0));
+    }
+    this.segmentMask = count - 1;
+  }
+
+  /**
+   * Returns the cached rendering, or renders and caches it.
+   */
+  public V get(GlobalPresetData preset, String message,
+      BiFunction<GlobalPresetData, String, V> renderer) {
+    if (maxEntries <= 0) {
+      return renderer.apply(preset, message);
+    }
+
+    // Look up with a reused per-thread key so that hits allocate nothing
+    Key probe = PROBE.get().set(preset, message);
+    Segment<V> segment = segmentFor(probe.hash);
+    V cached;
+    synchronized (segment) {
+      cached = segment.entries.get(probe);
+    }
+    probe.set(null, null);
+    if (cached != null) {
+      hits.increment();
+      return cached;
+    }
+
+    misses.increment();
+    V rendered = renderer.apply(preset, message);
+    put(segment, new Key(preset, message), rendered);
+    return rendered;
+  }
+
+  private Segment<V> segmentFor(int hash) {
+    // Mix the high bits in, since the mask only looks at the low ones
+    return segments[(hash ^ (hash >>> 16)) & segmentMask];
+  }
+
+  private void put(Segment<V> segment, Key key, V rendered) {
+    long entryWeight = weigh(key, rendered);
+    if (entryWeight > segment.maxWeight) {
+      return;
+    }
+
+    synchronized (segment) {
+      V previous = segment.entries.put(key, rendered);
+      if (previous != null) {
+        segment.weight -= weigh(key, previous);
+      }
+      segment.weight += entryWeight;
+
+      Iterator<Map.Entry<Key, V>> it = segment.entries.entrySet().iterator();
+      while ((segment.entries.size() > segment.maxEntries || segment.weight > segment.maxWeight) && it.hasNext()) {
+        Map.Entry<Key, V> eldest = it.next();
+        segment.weight -= weigh(eldest.getKey(), eldest.getValue());
+        it.remove();
+        evictions.increment();
+      }
+    }
+  }
+
+  /**
+   * Drops every entry rendered with a preset of this name.
+   */
+  public void invalidate(String presetName) {
+    for (Segment<V> segment : segments) {
+      synchronized (segment) {
+        Iterator<Map.Entry<Key, V>> it = segment.entries.entrySet().iterator();
+        while (it.hasNext()) {
+          Map.Entry<Key, V> entry = it.next();
+          if (entry.getKey().preset.getName().equals(presetName)) {
+            segment.weight -= weigh(entry.getKey(), entry.getValue());
+            it.remove();
+          }
+        }
+      }
+    }
+  }
+
+  public void clear() {
+    for (Segment<V> segment : segments) {
+      synchronized (segment) {
+        segment.entries.clear();
+        segment.weight = 0;
+      }
+    }
+  }
+
+  public int size() {
+    int size = 0;
+    for (Segment<V> segment : segments) {
+      synchronized (segment) {
+        size += segment.entries.size();
+      }
+    }
+    return size;
+  }
+
+  public long getWeight() {
+    long weight = 0;
+    for (Segment<V> segment : segments) {
+      synchronized (segment) {
+        weight += segment.weight;
+      }
+    }
+    return weight;
+  }
+
+  public long getHits() {
+    return hits.sum();
+  }
+
+  public long getMisses() {
+    return misses.sum();
+  }
+
+  public long getEvictions() {
+    return evictions.sum();
+  }
+
+  public double getHitRate() {
+    long hitCount = hits.sum();
+    long total = hitCount + misses.sum();
+    return total == 0 ? 0 : (double) hitCount / total;
+  }
+
+  private long weigh(Key key, V rendered) {
+    return key.message.length() + weigher.applyAsInt(rendered);
+  }
+
+  /**
+   * One LRU share of the cache, guarded by its own monitor.
+   */
+  private static final class Segment<V> {
+    private final int maxEntries;
+    private final long maxWeight;
+    private final LinkedHashMap<Key, V> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long weight;
+
+    private Segment(int maxEntries, long maxWeight) {
+      this.maxEntries = maxEntries;
+      this.maxWeight = maxWeight;
+    }
+  }
+
+  private static final class Key {
+    private GlobalPresetData preset;
+    private String message;
+    private int hash;
+
+    private Key() {
+    }
+
+    private Key(GlobalPresetData preset, String message) {
+      set(preset, message);
+    }
+
+    private Key set(GlobalPresetData preset, String message) {
+      this.preset = preset;
+      this.message = message;
+      this.hash = message == null ? 0 : 31 * System.identityHashCode(preset) + message.hashCode();
+      return this;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof Key)) {
+        return false;
+      }
+      Key other = (Key) o;
+      return preset == other.preset && message.equals(other.message);
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+  }
+}
@@ -0,0 +1,18 @@
+package io.imadam.betterchatcolours.render;
+
+/**
+ * How {@code %chatcolor_process:<msg>%} output is produced.
+ */
+public enum RenderMode {
+  /** Write legacy colour codes directly from the preset's RGB stops. */
+  NATIVE,
+  /** Build a MiniMessage gradient and re-serialize it through the legacy serializer. */
+  MINIMESSAGE;
+
+  public static RenderMode fromConfig(String value) {
+    if (value != null && value.equalsIgnoreCase("minimessage")) {
+      return MINIMESSAGE;
+    }
+    return NATIVE;
+  }
+}
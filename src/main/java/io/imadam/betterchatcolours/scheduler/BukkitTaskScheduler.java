@@ -0,0 +1,49 @@
+package io.imadam.betterchatcolours.scheduler;
+
+import org.bukkit.entity.Entity;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitScheduler;
+
+/**
+ * Paper and Spigot: everything except async work runs on the main thread.
+ */
+public final class BukkitTaskScheduler implements TaskScheduler {
+
+  private final Plugin plugin;
+  private final BukkitScheduler scheduler;
+
+  public BukkitTaskScheduler(Plugin plugin) {
+    this.plugin = plugin;
+    this.scheduler = plugin.getServer().getScheduler();
+  }
+
+  @Override
+  public void runGlobal(Runnable task) {
+    scheduler.runTask(plugin, task);
+  }
+
+  @Override
+  public void runGlobalLater(Runnable task, long delayTicks) {
+    scheduler.runTaskLater(plugin, task, delayTicks);
+  }
+
+  @Override
+  public void runGlobalTimer(Runnable task, long delayTicks, long periodTicks) {
+    scheduler.runTaskTimer(plugin, task, delayTicks, periodTicks);
+  }
+
+  @Override
+  public void runForEntity(Entity entity, Runnable task) {
+    scheduler.runTask(plugin, task);
+  }
+
+  @Override
+  public void runForEntityLater(Entity entity, Runnable task, long delayTicks) {
+    scheduler.runTaskLater(plugin, task, delayTicks);
+  }
+
+  @Override
+  public void runAsync(Runnable task) {
+    scheduler.runTaskAsynchronously(plugin, task);
+  }
+}
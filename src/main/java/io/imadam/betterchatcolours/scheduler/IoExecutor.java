@@ -0,0 +1,122 @@
+package io.imadam.betterchatcolours.scheduler;
+
+import org.bukkit.plugin.Plugin;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * The one thread pool for disk and database work, owned by the plugin. Each
+ * component gets an {@link IoLane} that runs its tasks in order, one at a time,
+ * with a bounded queue; the pool only ever holds one running drain per lane,
+ * so a lane blocked waiting on another lane can't starve it of a thread.
+ * <p>
+ * On Java 21 and later the pool can use virtual threads instead, looked up
+ * reflectively so the plugin still runs on Java 17.
+ */
+public class IoExecutor {
+
+  // Far above the number of lanes that can be busy at once (storage, a migration target, user data, transfers)
+  private static final int MAX_THREADS = 16;
+
+  private final Plugin plugin;
+  private final ExecutorService pool;
+  private final ScheduledExecutorService timer;
+  private final ExecutorService fallback;
+  private final int laneCapacity;
+  private final boolean virtualThreads;
+
+  public IoExecutor(Plugin plugin, int laneCapacity, boolean useVirtualThreads) {
+    this.plugin = plugin;
+    this.laneCapacity = laneCapacity;
+
+    ExecutorService virtualPool = useVirtualThreads ? createVirtualThreadPool() : null;
+    this.virtualThreads = virtualPool != null;
+    if (virtualPool != null) {
+      this.pool = virtualPool;
+    } else {
+      AtomicInteger count = new AtomicInteger();
+      ThreadPoolExecutor threadPool = new ThreadPoolExecutor(1, MAX_THREADS, 60, TimeUnit.SECONDS,
+          new SynchronousQueue<>(), daemonThreads(() -> "BetterChatColours-IO-" + count.incrementAndGet()));
+      this.pool = threadPool;
+    }
+    // Only hands periodic tasks to their lanes, never runs them itself
+    this.timer = Executors.newSingleThreadScheduledExecutor(daemonThreads(() -> "BetterChatColours-IO-Timer"));
+    // Runs lane turns only while every pool thread is busy
+    this.fallback = Executors.newSingleThreadExecutor(daemonThreads(() -> "BetterChatColours-IO-Fallback"));
+  }
+
+  public boolean usesVirtualThreads() {
+    return virtualThreads;
+  }
+
+  /**
+   * @param name shown in the thread name while the lane's tasks run
+   */
+  public IoLane newLane(String name) {
+    return new IoLane(this, "BetterChatColours-" + name, laneCapacity);
+  }
+
+  ExecutorService pool() {
+    return pool;
+  }
+
+  ExecutorService fallback() {
+    return fallback;
+  }
+
+  ScheduledExecutorService timer() {
+    return timer;
+  }
+
+  Plugin plugin() {
+    return plugin;
+  }
+
+  /**
+   * Called last in onDisable, after every lane has been closed.
+   */
+  public void shutdown() {
+    timer.shutdownNow();
+    pool.shutdown();
+    fallback.shutdown();
+    try {
+      if (!pool.awaitTermination(10, TimeUnit.SECONDS) || !fallback.awaitTermination(1, TimeUnit.SECONDS)) {
+        plugin.getLogger().warning("I/O tasks were still running at shutdown");
+        pool.shutdownNow();
+        fallback.shutdownNow();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private ExecutorService createVirtualThreadPool() {
+    try {
+      Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+      Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+      builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, "BetterChatColours-IO-", 1L);
+      ThreadFactory factory = (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+      return (ExecutorService) Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class)
+          .invoke(null, factory);
+    } catch (ReflectiveOperationException e) {
+      plugin.getLogger().warning("Virtual threads need Java 21 or later, using a thread pool");
+      return null;
+    }
+  }
+
+  private static ThreadFactory daemonThreads(Supplier<String> names) {
+    return runnable -> {
+      Thread thread = new Thread(runnable, names.get());
+      thread.setDaemon(true);
+      return thread;
+    };
+  }
+}
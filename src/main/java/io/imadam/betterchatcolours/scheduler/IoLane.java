@@ -0,0 +1,191 @@
+package io.imadam.betterchatcolours.scheduler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+
+/**
+ * An ordered queue of tasks run on the shared {@link IoExecutor}, one at a time,
+ * so a component can keep state that only its own tasks touch (an open file or
+ * database connection). When the queue is full, background callers wait for
+ * room; a server thread only waits briefly and then has its task rejected.
+ * Tasks never run on the caller's thread.
+ */
+public class IoLane implements Executor {
+
+  // Tasks run per turn on a pool thread, before the lane lets other lanes have it
+  private static final int TASKS_PER_TURN = 64;
+  // How long a server thread waits for room in a full queue before its task is rejected
+  private static final long SERVER_THREAD_WAIT_MILLIS = 50;
+
+  private final IoExecutor owner;
+  private final String name;
+  private final BlockingQueue<Runnable> tasks;
+  private final AtomicBoolean scheduled = new AtomicBoolean();
+  private final List<ScheduledFuture<?>> timers = new ArrayList<>();
+  private final AtomicBoolean warnedFull = new AtomicBoolean();
+  private final AtomicBoolean warnedRejected = new AtomicBoolean();
+  private volatile boolean closed;
+  private volatile Thread runner;
+
+  IoLane(IoExecutor owner, String name, int capacity) {
+    this.owner = owner;
+    this.name = name;
+    this.tasks = new LinkedBlockingQueue<>(capacity);
+  }
+
+  @Override
+  public void execute(Runnable task) {
+    if (closed) {
+      throw new RejectedExecutionException(name + " is closed");
+    }
+    if (!tasks.offer(task)) {
+      enqueueWhenFull(task);
+    }
+    schedule();
+  }
+
+  private void enqueueWhenFull(Runnable task) {
+    if (warnedFull.compareAndSet(false, true)) {
+      owner.plugin().getLogger().warning(name + " has a full queue, callers are waiting for it to catch up");
+    }
+    try {
+      if (!owner.plugin().getServer().isPrimaryThread()) {
+        tasks.put(task);
+      } else if (!tasks.offer(task, SERVER_THREAD_WAIT_MILLIS, TimeUnit.MILLISECONDS)) {
+        owner.plugin().getLogger().warning(name + " is full, rejected a task from the server thread");
+        throw new RejectedExecutionException(name + " is full");
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RejectedExecutionException("Interrupted while waiting for " + name, e);
+    }
+  }
+
+  /**
+   * Runs {@code task} on this lane every {@code delay}, until the lane is closed.
+   */
+  public synchronized void scheduleWithFixedDelay(Runnable task, long initialDelay, long delay, TimeUnit unit) {
+    if (closed) {
+      throw new RejectedExecutionException(name + " is closed");
+    }
+    // Wait for each run to finish, so slow runs don't pile up in the queue
+    timers.add(owner.timer().scheduleWithFixedDelay(() -> {
+      try {
+        CompletableFuture.runAsync(task, this).join();
+      } catch (CompletionException e) {
+        owner.plugin().getLogger().log(Level.SEVERE, "Error in periodic task on " + name, e.getCause());
+      } catch (RejectedExecutionException e) {
+        // Closed since the timer fired
+      }
+    }, initialDelay, delay, unit));
+  }
+
+  /**
+   * Stops accepting tasks and waits for the queued ones to finish.
+   */
+  public void close(long timeout, TimeUnit unit) {
+    CompletableFuture<Void> drained;
+    try {
+      drained = CompletableFuture.runAsync(() -> {
+      }, this);
+    } catch (RejectedExecutionException e) {
+      return;
+    }
+    stopAccepting();
+    try {
+      drained.get(timeout, unit);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (ExecutionException | TimeoutException e) {
+      owner.plugin().getLogger().warning(name + " did not finish its tasks in time");
+    }
+  }
+
+  /**
+   * Stops accepting tasks, drops the queued ones and interrupts the running one.
+   */
+  public void closeNow() {
+    stopAccepting();
+    tasks.clear();
+    Thread current = runner;
+    if (current != null) {
+      current.interrupt();
+    }
+  }
+
+  private synchronized void stopAccepting() {
+    closed = true;
+    for (ScheduledFuture<?> timer : timers) {
+      timer.cancel(false);
+    }
+    timers.clear();
+  }
+
+  private void schedule() {
+    if (tasks.isEmpty() || !scheduled.compareAndSet(false, true)) {
+      return;
+    }
+    try {
+      owner.pool().execute(this::drain);
+    } catch (RejectedExecutionException e) {
+      // Every pool thread is busy. The caller may be a server thread, so hand the turn
+      // to the fallback thread instead of running it here
+      try {
+        owner.fallback().execute(this::drain);
+        if (warnedRejected.compareAndSet(false, true)) {
+          owner.plugin().getLogger().warning("No I/O thread free for " + name + ", using the fallback thread");
+        }
+      } catch (RejectedExecutionException stopped) {
+        // Shutting down; the tasks stay queued and the next execute tries again
+        scheduled.set(false);
+      }
+    }
+  }
+
+  private void drain() {
+    runTurn();
+    // Anything queued since the last poll, or left over from a full turn
+    schedule();
+  }
+
+  /**
+   * Runs up to {@link #TASKS_PER_TURN} tasks, then clears the scheduled flag.
+   */
+  private void runTurn() {
+    Thread thread = Thread.currentThread();
+    String threadName = thread.getName();
+    thread.setName(name);
+    runner = thread;
+    try {
+      for (int i = 0; i < TASKS_PER_TURN; i++) {
+        Runnable task = tasks.poll();
+        if (task == null) {
+          break;
+        }
+        try {
+          task.run();
+        } catch (RuntimeException e) {
+          owner.plugin().getLogger().log(Level.SEVERE, "Uncaught error in " + name, e);
+        }
+      }
+    } finally {
+      runner = null;
+      // Don't let an interrupt meant for this lane's task leak to the next user of the thread
+      Thread.interrupted();
+      thread.setName(threadName);
+      scheduled.set(false);
+    }
+  }
+}
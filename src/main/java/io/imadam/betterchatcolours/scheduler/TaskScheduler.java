@@ -0,0 +1,37 @@
+package io.imadam.betterchatcolours.scheduler;
+
+import org.bukkit.entity.Entity;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Where the plugin runs its delayed and thread-bound work. Every path ends up
+ * on the main thread, apart from {@link #runAsync}. Delays are in ticks.
+ */
+public interface TaskScheduler {
+
+  /**
+   * Runs work that isn't tied to a player or location, such as shared plugin state.
+   */
+  void runGlobal(Runnable task);
+
+  void runGlobalLater(Runnable task, long delayTicks);
+
+  void runGlobalTimer(Runnable task, long delayTicks, long periodTicks);
+
+  /**
+   * Runs work that touches an entity, such as opening a player's menu.
+   */
+  void runForEntity(Entity entity, Runnable task);
+
+  void runForEntityLater(Entity entity, Runnable task, long delayTicks);
+
+  void runAsync(Runnable task);
+
+  /**
+   * @return an executor for {@link #runGlobal}, for continuing futures there
+   */
+  default Executor globalExecutor() {
+    return this::runGlobal;
+  }
+}
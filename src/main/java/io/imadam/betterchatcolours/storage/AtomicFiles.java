@@ -0,0 +1,34 @@
+package io.imadam.betterchatcolours.storage;
+
+import org.bukkit.configuration.file.FileConfiguration;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Writes files via a temporary sibling and a move, so a crash mid-write never
+ * leaves a truncated file behind.
+ */
+final class AtomicFiles {
+
+  private AtomicFiles() {
+  }
+
+  static void save(FileConfiguration config, File target) throws IOException {
+    File tempFile = new File(target.getParentFile(), target.getName() + ".tmp");
+    config.save(tempFile);
+    replace(tempFile.toPath(), target.toPath());
+  }
+
+  static void replace(Path source, Path target) throws IOException {
+    try {
+      Files.move(source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (AtomicMoveNotSupportedException e) {
+      Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+    }
+  }
+}
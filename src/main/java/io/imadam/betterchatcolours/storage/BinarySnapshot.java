@@ -0,0 +1,170 @@
+package io.imadam.betterchatcolours.storage;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+
+/**
+ * Compact binary user data snapshot, read through a memory mapping, or from the
+ * heap when the file must stay deletable.
+ * <p>
+ * Layout: {@code magic:int, version:int, nameCount:int, recordCount:int}, then the
+ * preset names as {@code length:short, utf8}, then one 20 byte record per player,
+ * {@code uuidMost:long, uuidLeast:long, nameIndex:int}, sorted by UUID so single
+ * players can be found by binary search without loading the file.
+ */
+final class BinarySnapshot {
+
+  private static final int MAGIC = 0x42434355; // "BCCU"
+  private static final int VERSION = 1;
+  private static final int HEADER_BYTES = Integer.BYTES * 4;
+  private static final int RECORD_BYTES = Long.BYTES * 2 + Integer.BYTES;
+
+  private final ByteBuffer buffer;
+  private final String[] names;
+  private final int recordsOffset;
+  private final int recordCount;
+
+  private BinarySnapshot(ByteBuffer buffer, String[] names, int recordsOffset, int recordCount) {
+    this.buffer = buffer;
+    this.names = names;
+    this.recordsOffset = recordsOffset;
+    this.recordCount = recordCount;
+  }
+
+  static BinarySnapshot open(File file) throws IOException {
+    MappedByteBuffer buffer;
+    try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+      buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    }
+    return parse(buffer, file);
+  }
+
+  /**
+   * Reads the whole file into memory. Unlike {@link #open}, this leaves no mapping
+   * behind, which on Windows would stop the file from being deleted.
+   */
+  static BinarySnapshot read(File file) throws IOException {
+    return parse(ByteBuffer.wrap(Files.readAllBytes(file.toPath())), file);
+  }
+
+  private static BinarySnapshot parse(ByteBuffer buffer, File file) throws IOException {
+    if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+      throw new IOException(file.getName() + " is not a user data snapshot");
+    }
+    if (buffer.getInt(4) != VERSION) {
+      throw new IOException("Unsupported snapshot version " + buffer.getInt(4) + " in " + file.getName());
+    }
+
+    String[] names = new String[buffer.getInt(8)];
+    int recordCount = buffer.getInt(12);
+    int position = HEADER_BYTES;
+    for (int i = 0; i < names.length; i++) {
+      byte[] bytes = new byte[buffer.getShort(position)];
+      buffer.get(position + Short.BYTES, bytes);
+      names[i] = new String(bytes, StandardCharsets.UTF_8);
+      position += Short.BYTES + bytes.length;
+    }
+
+    if ((long) position + (long) recordCount * RECORD_BYTES > buffer.capacity()) {
+      throw new IOException(file.getName() + " is truncated");
+    }
+    return new BinarySnapshot(buffer, names, position, recordCount);
+  }
+
+  /**
+   * Writes a snapshot of {@code equips} to {@code file}, replacing it atomically.
+   */
+  static void write(File file, Map<UUID, String> equips) throws IOException {
+    Map<String, Integer> nameIndexes = new HashMap<>();
+    List<String> names = new ArrayList<>();
+    int namesBytes = 0;
+    for (String preset : equips.values()) {
+      if (nameIndexes.putIfAbsent(preset, names.size()) == null) {
+        names.add(preset);
+        namesBytes += Short.BYTES + preset.getBytes(StandardCharsets.UTF_8).length;
+      }
+    }
+
+    UUID[] players = equips.keySet().toArray(new UUID[0]);
+    Arrays.sort(players);
+
+    ByteBuffer out = ByteBuffer.allocateDirect(HEADER_BYTES + namesBytes + players.length * RECORD_BYTES);
+    out.putInt(MAGIC).putInt(VERSION).putInt(names.size()).putInt(players.length);
+    for (String name : names) {
+      byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+      out.putShort((short) bytes.length).put(bytes);
+    }
+    for (UUID player : players) {
+      out.putLong(player.getMostSignificantBits())
+          .putLong(player.getLeastSignificantBits())
+          .putInt(nameIndexes.get(equips.get(player)));
+    }
+    out.flip();
+
+    File tempFile = new File(file.getParentFile(), file.getName() + ".tmp");
+    try (FileChannel channel = FileChannel.open(tempFile.toPath(), StandardOpenOption.CREATE,
+        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+      while (out.hasRemaining()) {
+        channel.write(out);
+      }
+      channel.force(true);
+    }
+    AtomicFiles.replace(tempFile.toPath(), file.toPath());
+  }
+
+  int size() {
+    return recordCount;
+  }
+
+  /**
+   * Binary search against the mapped records.
+   *
+   * @return the preset name, or null if the player isn't in the snapshot
+   */
+  String lookup(UUID playerUuid) {
+    long most = playerUuid.getMostSignificantBits();
+    long least = playerUuid.getLeastSignificantBits();
+    int low = 0;
+    int high = recordCount - 1;
+    while (low <= high) {
+      int middle = (low + high) >>> 1;
+      int offset = recordsOffset + middle * RECORD_BYTES;
+      int compare = Long.compare(buffer.getLong(offset), most);
+      if (compare == 0) {
+        compare = Long.compare(buffer.getLong(offset + Long.BYTES), least);
+      }
+      if (compare < 0) {
+        low = middle + 1;
+      } else if (compare > 0) {
+        high = middle - 1;
+      } else {
+        return names[buffer.getInt(offset + Long.BYTES * 2)];
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Bulk load: passes every record to {@code consumer} in UUID order.
+   */
+  void forEach(BiConsumer<UUID, String> consumer) {
+    for (int i = 0; i < recordCount; i++) {
+      int offset = recordsOffset + i * RECORD_BYTES;
+      consumer.accept(new UUID(buffer.getLong(offset), buffer.getLong(offset + Long.BYTES)),
+          names[buffer.getInt(offset + Long.BYTES * 2)]);
+    }
+  }
+}
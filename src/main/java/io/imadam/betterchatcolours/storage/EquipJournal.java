@@ -0,0 +1,154 @@
+package io.imadam.betterchatcolours.storage;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of equip changes, so a change costs one small sequential write
+ * instead of rewriting the whole user data file. Each record is
+ * {@code nameLength:short, uuid:long,long, timestamp:long, name:utf8, crc32:int};
+ * a name length of 0 means unequipped. A record cut short by a crash fails its
+ * length or checksum test and is dropped, along with anything after it.
+ */
+final class EquipJournal implements Closeable {
+
+  private static final int HEADER_BYTES = Short.BYTES + Long.BYTES * 3;
+  private static final int TRAILER_BYTES = Integer.BYTES;
+
+  private final File file;
+  private final Logger logger;
+  private FileChannel channel;
+
+  EquipJournal(File file, Logger logger) {
+    this.file = file;
+    this.logger = logger;
+  }
+
+  /**
+   * Passes every intact record to {@code consumer} in order, with
+   * {@link StorageBackend#UNEQUIPPED} for removals, and cuts off a torn tail.
+   * Must be called before {@link #append(Map)}.
+   *
+   * @return the number of records replayed
+   */
+  int replay(BiConsumer<UUID, String> consumer) throws IOException {
+    channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ,
+        StandardOpenOption.WRITE);
+
+    long size = channel.size();
+    if (size > Integer.MAX_VALUE) {
+      throw new IOException("Journal too large: " + size + " bytes");
+    }
+    ByteBuffer buffer = ByteBuffer.allocate((int) size);
+    while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+      // Keep reading until the buffer is full
+    }
+    buffer.flip();
+
+    CRC32 crc = new CRC32();
+    int records = 0;
+    while (buffer.remaining() >= HEADER_BYTES + TRAILER_BYTES) {
+      int start = buffer.position();
+      int nameLength = buffer.getShort(start);
+      if (nameLength < 0 || buffer.remaining() < HEADER_BYTES + nameLength + TRAILER_BYTES) {
+        break;
+      }
+
+      int crcOffset = start + HEADER_BYTES + nameLength;
+      crc.reset();
+      crc.update(buffer.slice(start, HEADER_BYTES + nameLength));
+      if ((int) crc.getValue() != buffer.getInt(crcOffset)) {
+        break;
+      }
+
+      UUID playerUuid = new UUID(buffer.getLong(start + Short.BYTES), buffer.getLong(start + Short.BYTES + Long.BYTES));
+      if (nameLength == 0) {
+        consumer.accept(playerUuid, StorageBackend.UNEQUIPPED);
+      } else {
+        byte[] name = new byte[nameLength];
+        buffer.get(start + HEADER_BYTES, name);
+        consumer.accept(playerUuid, new String(name, StandardCharsets.UTF_8));
+      }
+      buffer.position(crcOffset + TRAILER_BYTES);
+      records++;
+    }
+
+    if (buffer.hasRemaining()) {
+      logger.warning("Discarding " + buffer.remaining() + " bytes of incomplete data at the end of " + file.getName());
+      channel.truncate(buffer.position());
+    }
+    channel.position(buffer.position());
+    return records;
+  }
+
+  /**
+   * Appends one record per change and forces them to disk.
+   */
+  void append(Map<UUID, String> changes) throws IOException {
+    long timestamp = System.currentTimeMillis();
+    byte[][] names = new byte[changes.size()][];
+    int total = 0;
+    int index = 0;
+    for (Map.Entry<UUID, String> change : changes.entrySet()) {
+      names[index] = change.getValue().getBytes(StandardCharsets.UTF_8);
+      if (names[index].length > Short.MAX_VALUE) {
+        throw new IOException("Preset name too long: " + change.getValue());
+      }
+      total += HEADER_BYTES + names[index].length + TRAILER_BYTES;
+      index++;
+    }
+
+    ByteBuffer buffer = ByteBuffer.allocate(total);
+    CRC32 crc = new CRC32();
+    index = 0;
+    for (Map.Entry<UUID, String> change : changes.entrySet()) {
+      UUID playerUuid = change.getKey();
+      byte[] name = names[index++];
+      int start = buffer.position();
+      buffer.putShort((short) name.length)
+          .putLong(playerUuid.getMostSignificantBits())
+          .putLong(playerUuid.getLeastSignificantBits())
+          .putLong(timestamp)
+          .put(name);
+      crc.reset();
+      crc.update(buffer.slice(start, HEADER_BYTES + name.length));
+      buffer.putInt((int) crc.getValue());
+    }
+    buffer.flip();
+
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+    channel.force(false);
+  }
+
+  long size() throws IOException {
+    return channel.size();
+  }
+
+  /**
+   * Empties the journal once its contents are part of a snapshot.
+   */
+  void reset() throws IOException {
+    channel.truncate(0);
+    channel.position(0);
+    channel.force(true);
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (channel != null) {
+      channel.close();
+    }
+  }
+}
@@ -0,0 +1,26 @@
+package io.imadam.betterchatcolours.storage;
+
+import java.util.UUID;
+import java.util.function.BiConsumer;
+
+/**
+ * The stored equips as of one point in time, from {@link StorageBackend#snapshotEquips()}.
+ * It is read on the caller's thread, so the storage thread stays free for other
+ * work however long the read takes. Must be closed.
+ */
+public interface EquipSnapshot extends AutoCloseable {
+
+  /**
+   * @return the number of players with a preset equipped
+   */
+  int size();
+
+  /**
+   * Passes every equip in the snapshot to {@code consumer}.
+   */
+  void forEach(BiConsumer<UUID, String> consumer);
+
+  @Override
+  default void close() {
+  }
+}
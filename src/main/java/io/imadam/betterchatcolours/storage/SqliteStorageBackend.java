@@ -0,0 +1,346 @@
+package io.imadam.betterchatcolours.storage;
+
+import io.imadam.betterchatcolours.BetterChatColours;
+import io.imadam.betterchatcolours.data.GlobalPresetData;
+import io.imadam.betterchatcolours.scheduler.IoLane;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.logging.Level;
+
+/**
+ * Embedded SQLite database in the plugin folder. Equips are one row per player,
+ * so single players can be looked up without reading everything. SQLite only
+ * allows one writer, so all statements run on a single storage thread.
+ */
+public class SqliteStorageBackend implements StorageBackend {
+
+  private static final String CREATE_EQUIPS = "CREATE TABLE IF NOT EXISTS equips ("
+      + "uuid CHAR(36) PRIMARY KEY, preset VARCHAR(64) NOT NULL)";
+  private static final String CREATE_PRESETS = "CREATE TABLE IF NOT EXISTS presets ("
+      + "name VARCHAR(64) PRIMARY KEY, colors TEXT NOT NULL, permission VARCHAR(255) NOT NULL, "
+      + "position INTEGER NOT NULL)";
+  private static final String SELECT_ALL_EQUIPS = "SELECT uuid, preset FROM equips";
+  private static final String COUNT_EQUIPS = "SELECT COUNT(*) FROM equips";
+  private static final String SELECT_EQUIP = "SELECT preset FROM equips WHERE uuid = ?";
+  private static final String UPSERT_EQUIP = "INSERT OR REPLACE INTO equips (uuid, preset) VALUES (?, ?)";
+  private static final String DELETE_EQUIP = "DELETE FROM equips WHERE uuid = ?";
+  private static final String SELECT_PRESETS = "SELECT name, colors, permission FROM presets ORDER BY position";
+  private static final String DELETE_PRESETS = "DELETE FROM presets";
+  private static final String INSERT_PRESET = "INSERT INTO presets (name, colors, permission, position) "
+      + "VALUES (?, ?, ?, ?)";
+  // Keeps the position of an existing preset, new ones go last
+  private static final String UPSERT_PRESET = "INSERT OR REPLACE INTO presets (name, colors, permission, position) "
+      + "VALUES (?, ?, ?, COALESCE((SELECT position FROM presets WHERE name = ?), "
+      + "(SELECT COALESCE(MAX(position), -1) + 1 FROM presets)))";
+  private static final String DELETE_PRESET = "DELETE FROM presets WHERE name = ?";
+
+  private final BetterChatColours plugin;
+  private final File databaseFile;
+  private final IoLane executor;
+  // Only used from the storage thread
+  private Connection connection;
+
+  public SqliteStorageBackend(BetterChatColours plugin) {
+    this.plugin = plugin;
+    this.databaseFile = new File(plugin.getDataFolder(), "data.db");
+    this.executor = plugin.getIoExecutor().newLane("Storage");
+  }
+
+  @Override
+  public String getName() {
+    return "sqlite";
+  }
+
+  @Override
+  public CompletableFuture<Void> init() {
+    return CompletableFuture.runAsync(() -> {
+      try {
+        Class.forName("org.sqlite.JDBC");
+        connection = DriverManager.getConnection("jdbc:sqlite:" + databaseFile.getAbsolutePath());
+        try (Statement statement = connection.createStatement()) {
+          statement.execute("PRAGMA journal_mode=WAL");
+          statement.execute("PRAGMA synchronous=NORMAL");
+          statement.execute(CREATE_EQUIPS);
+          statement.execute(CREATE_PRESETS);
+        }
+      } catch (ClassNotFoundException | SQLException e) {
+        throw new CompletionException(e);
+      }
+    }, executor);
+  }
+
+  @Override
+  public CompletableFuture<Map<UUID, String>> loadAllEquips() {
+    return CompletableFuture.supplyAsync(() -> {
+      Map<UUID, String> equips = new HashMap<>();
+      try (PreparedStatement statement = connection.prepareStatement(SELECT_ALL_EQUIPS);
+          ResultSet results = statement.executeQuery()) {
+        while (results.next()) {
+          String uuidString = results.getString(1);
+          try {
+            equips.put(UUID.fromString(uuidString), results.getString(2));
+          } catch (IllegalArgumentException e) {
+            plugin.getLogger().warning("Invalid UUID in database: " + uuidString);
+          }
+        }
+      } catch (SQLException e) {
+        throw new CompletionException(e);
+      }
+      plugin.getLogger().info("Loaded user data for " + equips.size() + " players");
+      return equips;
+    }, executor);
+  }
+
+  @Override
+  public CompletableFuture<String> loadEquip(UUID playerUuid) {
+    return CompletableFuture.supplyAsync(() -> {
+      try (PreparedStatement statement = connection.prepareStatement(SELECT_EQUIP)) {
+        statement.setString(1, playerUuid.toString());
+        try (ResultSet results = statement.executeQuery()) {
+          return results.next() ? results.getString(1) : null;
+        }
+      } catch (SQLException e) {
+        throw new CompletionException(e);
+      }
+    }, executor);
+  }
+
+  @Override
+  public CompletableFuture<Void> saveEquips(Map<UUID, String> changes) {
+    return CompletableFuture.runAsync(() -> inTransaction(() -> {
+      try (PreparedStatement upsert = connection.prepareStatement(UPSERT_EQUIP);
+          PreparedStatement delete = connection.prepareStatement(DELETE_EQUIP)) {
+        for (Map.Entry<UUID, String> change : changes.entrySet()) {
+          if (change.getValue().equals(UNEQUIPPED)) {
+            delete.setString(1, change.getKey().toString());
+            delete.addBatch();
+          } else {
+            upsert.setString(1, change.getKey().toString());
+            upsert.setString(2, change.getValue());
+            upsert.addBatch();
+          }
+        }
+        upsert.executeBatch();
+        delete.executeBatch();
+      }
+    }), executor);
+  }
+
+  @Override
+  public CompletableFuture<Integer> countEquips() {
+    return CompletableFuture.supplyAsync(() -> {
+      try (PreparedStatement statement = connection.prepareStatement(COUNT_EQUIPS);
+          ResultSet results = statement.executeQuery()) {
+        return results.next() ? results.getInt(1) : 0;
+      } catch (SQLException e) {
+        throw new CompletionException(e);
+      }
+    }, executor);
+  }
+
+  @Override
+  public CompletableFuture<Void> forEachEquip(BiConsumer<UUID, String> consumer) {
+    return CompletableFuture.runAsync(() -> {
+      try {
+        streamEquips(connection, consumer);
+      } catch (SQLException e) {
+        throw new CompletionException(e);
+      }
+    }, executor);
+  }
+
+  /**
+   * Opens a second, read-only connection whose transaction is pinned by a first
+   * read here. With WAL, later writes on the storage thread don't show up in it
+   * and aren't held up by it.
+   */
+  @Override
+  public CompletableFuture<EquipSnapshot> snapshotEquips() {
+    return CompletableFuture.supplyAsync(() -> {
+      try {
+        Connection reader = DriverManager.getConnection("jdbc:sqlite:" + databaseFile.getAbsolutePath());
+        try {
+          reader.setAutoCommit(false);
+          int size;
+          try (Statement statement = reader.createStatement();
+              ResultSet results = statement.executeQuery(COUNT_EQUIPS)) {
+            size = results.next() ? results.getInt(1) : 0;
+          }
+          return new ReadSnapshot(reader, size);
+        } catch (SQLException e) {
+          reader.close();
+          throw e;
+        }
+      } catch (SQLException e) {
+        throw new CompletionException(e);
+      }
+    }, executor);
+  }
+
+  private void streamEquips(Connection source, BiConsumer<UUID, String> consumer) throws SQLException {
+    try (PreparedStatement statement = source.prepareStatement(SELECT_ALL_EQUIPS)) {
+      statement.setFetchSize(1000);
+      try (ResultSet results = statement.executeQuery()) {
+        while (results.next()) {
+          String uuidString = results.getString(1);
+          try {
+            consumer.accept(UUID.fromString(uuidString), results.getString(2));
+          } catch (IllegalArgumentException e) {
+            plugin.getLogger().warning("Invalid UUID in database: " + uuidString);
+          }
+        }
+      }
+    }
+  }
+
+  @Override
+  public CompletableFuture<Map<String, GlobalPresetData>> loadPresets() {
+    return CompletableFuture.supplyAsync(() -> {
+      Map<String, GlobalPresetData> presets = new LinkedHashMap<>();
+      try (PreparedStatement statement = connection.prepareStatement(SELECT_PRESETS);
+          ResultSet results = statement.executeQuery()) {
+        while (results.next()) {
+          String name = results.getString(1);
+          List<String> colors = Arrays.asList(results.getString(2).split(","));
+          presets.put(name, new GlobalPresetData(name, colors, results.getString(3)));
+        }
+      } catch (SQLException e) {
+        throw new CompletionException(e);
+      }
+      return presets;
+    }, executor);
+  }
+
+  @Override
+  public CompletableFuture<Void> savePresets(Collection<GlobalPresetData> presets) {
+    return CompletableFuture.runAsync(() -> inTransaction(() -> {
+      try (Statement clear = connection.createStatement();
+          PreparedStatement insert = connection.prepareStatement(INSERT_PRESET)) {
+        clear.executeUpdate(DELETE_PRESETS);
+        int position = 0;
+        for (GlobalPresetData preset : presets) {
+          insert.setString(1, preset.getName());
+          insert.setString(2, String.join(",", preset.getColors()));
+          insert.setString(3, preset.getPermission());
+          insert.setInt(4, position++);
+          insert.addBatch();
+        }
+        insert.executeBatch();
+      }
+    }), executor);
+  }
+
+  @Override
+  public CompletableFuture<Void> savePresetChanges(Collection<GlobalPresetData> changed, Collection<String> removed) {
+    return CompletableFuture.runAsync(() -> inTransaction(() -> {
+      try (PreparedStatement delete = connection.prepareStatement(DELETE_PRESET);
+          PreparedStatement upsert = connection.prepareStatement(UPSERT_PRESET)) {
+        for (String presetName : removed) {
+          delete.setString(1, presetName);
+          delete.addBatch();
+        }
+        delete.executeBatch();
+
+        // One at a time, so each new preset sees the position given to the one before
+        for (GlobalPresetData preset : changed) {
+          upsert.setString(1, preset.getName());
+          upsert.setString(2, String.join(",", preset.getColors()));
+          upsert.setString(3, preset.getPermission());
+          upsert.setString(4, preset.getName());
+          upsert.executeUpdate();
+        }
+      }
+    }), executor);
+  }
+
+  @Override
+  public void close() {
+    executor.execute(() -> {
+      if (connection == null) {
+        return;
+      }
+      try {
+        connection.close();
+      } catch (SQLException e) {
+        plugin.getLogger().log(Level.WARNING, "Error closing database", e);
+      }
+    });
+    executor.close(30, TimeUnit.SECONDS);
+  }
+
+  private void inTransaction(SqlTask task) {
+    try {
+      connection.setAutoCommit(false);
+      try {
+        task.run();
+        connection.commit();
+      } catch (SQLException e) {
+        connection.rollback();
+        throw e;
+      } finally {
+        connection.setAutoCommit(true);
+      }
+    } catch (SQLException e) {
+      throw new CompletionException(e);
+    }
+  }
+
+  private final class ReadSnapshot implements EquipSnapshot {
+    private final Connection reader;
+    private final int size;
+
+    private ReadSnapshot(Connection reader, int size) {
+      this.reader = reader;
+      this.size = size;
+    }
+
+    @Override
+    public int size() {
+      return size;
+    }
+
+    @Override
+    public void forEach(BiConsumer<UUID, String> consumer) {
+      try {
+        streamEquips(reader, consumer);
+      } catch (SQLException e) {
+        throw new CompletionException(e);
+      }
+    }
+
+    @Override
+    public void close() {
+      try {
+        try {
+          reader.rollback();
+        } finally {
+          reader.close();
+        }
+      } catch (SQLException e) {
+        plugin.getLogger().log(Level.WARNING, "Error closing database snapshot", e);
+      }
+    }
+  }
+
+  @FunctionalInterface
+  private interface SqlTask {
+    void run() throws SQLException;
+  }
+}
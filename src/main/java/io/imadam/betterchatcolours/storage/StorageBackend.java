@@ -0,0 +1,82 @@
+package io.imadam.betterchatcolours.storage;
+
+import io.imadam.betterchatcolours.data.GlobalPresetData;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiConsumer;
+
+/**
+ * Where equipped presets and preset definitions are stored. All operations run
+ * off the calling thread and complete their futures when the disk work is done,
+ * so the main thread never has to wait on I/O.
+ */
+public interface StorageBackend {
+
+  /**
+   * Value used in {@link #saveEquips(Map)} for a player who has nothing equipped.
+   */
+  String UNEQUIPPED = "";
+
+  /**
+   * Short name used in config and logs, e.g. {@code yaml}.
+   */
+  String getName();
+
+  /**
+   * Prepares the storage (creates files or tables). Must complete before any other call.
+   */
+  CompletableFuture<Void> init();
+
+  CompletableFuture<Map<UUID, String>> loadAllEquips();
+
+  /**
+   * @return the equipped preset name, or null if the player has none
+   */
+  CompletableFuture<String> loadEquip(UUID playerUuid);
+
+  /**
+   * Stores a batch of equip changes. A value of {@link #UNEQUIPPED} removes the entry.
+   */
+  CompletableFuture<Void> saveEquips(Map<UUID, String> changes);
+
+  /**
+   * @return the number of players with a preset equipped
+   */
+  CompletableFuture<Integer> countEquips();
+
+  /**
+   * Streams every stored equip to {@code consumer} on the storage thread, without
+   * collecting them all first.
+   */
+  CompletableFuture<Void> forEachEquip(BiConsumer<UUID, String> consumer);
+
+  /**
+   * Captures the stored equips after all queued writes, to be read from another
+   * thread. Only taking the snapshot runs on the storage thread.
+   */
+  CompletableFuture<EquipSnapshot> snapshotEquips();
+
+  /**
+   * @return all stored presets by name; empty if nothing has been stored yet
+   */
+  CompletableFuture<Map<String, GlobalPresetData>> loadPresets();
+
+  /**
+   * Replaces the stored presets with the given ones.
+   */
+  CompletableFuture<Void> savePresets(Collection<GlobalPresetData> presets);
+
+  /**
+   * Writes only the given presets and deletes the removed ones, leaving everything
+   * else as stored.
+   */
+  CompletableFuture<Void> savePresetChanges(Collection<GlobalPresetData> changed, Collection<String> removed);
+
+  /**
+   * Waits for queued work to finish and releases the storage.
+   */
+  void close();
+}
@@ -0,0 +1,26 @@
+package io.imadam.betterchatcolours.storage;
+
+import io.imadam.betterchatcolours.BetterChatColours;
+
+import java.util.List;
+
+/**
+ * Creates the storage backend selected by {@code storage.type}.
+ */
+public final class StorageBackends {
+
+  public static final List<String> TYPES = List.of("yaml", "sqlite");
+
+  private StorageBackends() {
+  }
+
+  public static StorageBackend create(BetterChatColours plugin, String type) {
+    if (type != null && type.equalsIgnoreCase("sqlite")) {
+      return new SqliteStorageBackend(plugin);
+    }
+    if (type != null && !type.equalsIgnoreCase("yaml")) {
+      plugin.getLogger().warning("Unknown storage type '" + type + "', using yaml");
+    }
+    return new YamlStorageBackend(plugin);
+  }
+}
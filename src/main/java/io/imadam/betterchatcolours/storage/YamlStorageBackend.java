@@ -0,0 +1,538 @@
+package io.imadam.betterchatcolours.storage;
+
+import io.imadam.betterchatcolours.BetterChatColours;
+import io.imadam.betterchatcolours.data.GlobalPresetData;
+import io.imadam.betterchatcolours.scheduler.IoLane;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.logging.Level;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The original storage: presets.yml and userdata.yml, each read fully into memory.
+ * presets.yml is kept as a loaded document and edited in place, so comments and the
+ * order of untouched presets survive a save.
+ * Equip changes are appended to userdata.journal; a background compaction folds the
+ * journal into userdata.yml periodically or once it grows past a size limit.
+ * <p>
+ * With {@code storage.snapshot-format: binary} the snapshot is userdata.bin instead
+ * ({@link BinarySnapshot}). It stays mapped and only the changes since the last
+ * compaction are held in memory. An existing userdata.yml is converted on first load.
+ * Windows won't replace or delete a mapped file, so each compaction writes a new
+ * generation (userdata.1.bin, userdata.2.bin, ...) and older ones that couldn't be
+ * deleted yet are removed on the next start.
+ */
+public class YamlStorageBackend implements StorageBackend {
+
+  // userdata.bin, userdata.1.bin, userdata.2.bin, ...; temp files don't match
+  private static final Pattern SNAPSHOT_NAME = Pattern.compile("userdata(?:\\.(\\d+))?\\.bin");
+
+  private final BetterChatColours plugin;
+  private final File presetsFile;
+  private final File userDataFile;
+  private final boolean binaryFormat;
+  private final IoLane executor;
+  private final EquipJournal journal;
+  private final long compactInterval;
+  private final long compactSize;
+  // Only touched on the storage thread. yaml format: everything from userdata.yml plus
+  // the journal. binary format: changes since the snapshot, UNEQUIPPED for removals.
+  private Map<UUID, String> equips;
+  private BinarySnapshot snapshot;
+  // Generation of the open snapshot, -1 before the first one is written
+  private long snapshotGeneration = -1;
+  // presets.yml as last loaded or written, only touched on the storage thread
+  private FileConfiguration presetsConfig;
+  // Digest of those contents, so our own writes can be told apart from hand edits
+  private volatile byte[] presetsDigest;
+
+  public YamlStorageBackend(BetterChatColours plugin) {
+    this.plugin = plugin;
+    this.presetsFile = new File(plugin.getDataFolder(), "presets.yml");
+    this.userDataFile = new File(plugin.getDataFolder(), "userdata.yml");
+    this.binaryFormat = plugin.getConfig().getString("storage.snapshot-format", "yaml").equalsIgnoreCase("binary");
+    this.journal = new EquipJournal(new File(plugin.getDataFolder(), "userdata.journal"), plugin.getLogger());
+    this.compactInterval = Math.max(1, plugin.getConfig().getLong("storage.journal.compact-interval-seconds", 300));
+    this.compactSize = Math.max(1, plugin.getConfig().getLong("storage.journal.compact-size-kb", 1024)) * 1024L;
+    this.executor = plugin.getIoExecutor().newLane("Storage");
+  }
+
+  @Override
+  public String getName() {
+    return "yaml";
+  }
+
+  @Override
+  public CompletableFuture<Void> init() {
+    return CompletableFuture.runAsync(() -> {
+      executor.scheduleWithFixedDelay(this::compactQuietly, compactInterval, compactInterval, TimeUnit.SECONDS);
+    }, executor);
+  }
+
+  @Override
+  public CompletableFuture<Map<UUID, String>> loadAllEquips() {
+    return CompletableFuture.supplyAsync(() -> {
+      Map<UUID, String> current = allEquips();
+      plugin.getLogger().info("Loaded user data for " + current.size() + " players");
+      return current;
+    }, executor);
+  }
+
+  @Override
+  public CompletableFuture<String> loadEquip(UUID playerUuid) {
+    return CompletableFuture.supplyAsync(() -> lookup(playerUuid), executor);
+  }
+
+  @Override
+  public CompletableFuture<Void> saveEquips(Map<UUID, String> changes) {
+    return CompletableFuture.runAsync(() -> {
+      ensureLoaded();
+      try {
+        journal.append(changes);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+
+      if (binaryFormat) {
+        equips.putAll(changes);
+      } else {
+        apply(equips, changes);
+      }
+
+      try {
+        if (journal.size() >= compactSize) {
+          compact();
+        }
+      } catch (IOException e) {
+        plugin.getLogger().log(Level.WARNING, "Error compacting user data journal", e);
+      }
+    }, executor);
+  }
+
+  @Override
+  public CompletableFuture<Integer> countEquips() {
+    return CompletableFuture.supplyAsync(() -> {
+      ensureLoaded();
+      return count(snapshot, equips);
+    }, executor);
+  }
+
+  @Override
+  public CompletableFuture<Void> forEachEquip(BiConsumer<UUID, String> consumer) {
+    return CompletableFuture.runAsync(() -> {
+      ensureLoaded();
+      forEach(snapshot, equips, consumer);
+    }, executor);
+  }
+
+  @Override
+  public CompletableFuture<EquipSnapshot> snapshotEquips() {
+    return CompletableFuture.supplyAsync(() -> {
+      ensureLoaded();
+      // A compaction writes a new generation and never touches the mapped one in place.
+      // The yaml format holds everything in memory and is copied whole.
+      BinarySnapshot base = snapshot;
+      Map<UUID, String> changes = new HashMap<>(equips);
+      int size = count(base, changes);
+      return new EquipSnapshot() {
+        @Override
+        public int size() {
+          return size;
+        }
+
+        @Override
+        public void forEach(BiConsumer<UUID, String> consumer) {
+          YamlStorageBackend.forEach(base, changes, consumer);
+        }
+      };
+    }, executor);
+  }
+
+  /**
+   * Counts the equips in {@code base}, if any, with {@code changes} applied.
+   */
+  private static int count(BinarySnapshot base, Map<UUID, String> changes) {
+    int count = base == null ? 0 : base.size();
+    for (Map.Entry<UUID, String> change : changes.entrySet()) {
+      boolean inBase = base != null && base.lookup(change.getKey()) != null;
+      boolean equipped = !change.getValue().equals(UNEQUIPPED);
+      if (equipped && !inBase) {
+        count++;
+      } else if (!equipped && inBase) {
+        count--;
+      }
+    }
+    return count;
+  }
+
+  private static void forEach(BinarySnapshot base, Map<UUID, String> changes, BiConsumer<UUID, String> consumer) {
+    if (base != null) {
+      // Players changed since the snapshot come from the changes below
+      base.forEach((playerUuid, preset) -> {
+        if (!changes.containsKey(playerUuid)) {
+          consumer.accept(playerUuid, preset);
+        }
+      });
+    }
+    changes.forEach((playerUuid, preset) -> {
+      if (!preset.equals(UNEQUIPPED)) {
+        consumer.accept(playerUuid, preset);
+      }
+    });
+  }
+
+  @Override
+  public CompletableFuture<Map<String, GlobalPresetData>> loadPresets() {
+    return CompletableFuture.supplyAsync(() -> {
+      Map<String, GlobalPresetData> presets = new LinkedHashMap<>();
+      presetsConfig = readPresetsConfig();
+      ConfigurationSection section = presetsConfig.getConfigurationSection("presets");
+      if (section == null) {
+        return presets;
+      }
+
+      for (String presetName : section.getKeys(false)) {
+        List<String> colors = section.getStringList(presetName + ".colors");
+        String permission = section.getString(presetName + ".permission", "");
+
+        if (!colors.isEmpty()) {
+          presets.put(presetName, new GlobalPresetData(presetName, colors, permission));
+        }
+      }
+      return presets;
+    }, executor);
+  }
+
+  @Override
+  public CompletableFuture<Void> savePresets(Collection<GlobalPresetData> presets) {
+    return CompletableFuture.runAsync(() -> {
+      FileConfiguration config = presetsConfig();
+      Set<String> keep = new HashSet<>();
+      for (GlobalPresetData preset : presets) {
+        keep.add(preset.getName());
+      }
+
+      List<String> removed = new ArrayList<>();
+      ConfigurationSection section = config.getConfigurationSection("presets");
+      if (section != null) {
+        for (String presetName : section.getKeys(false)) {
+          if (!keep.contains(presetName)) {
+            removed.add(presetName);
+          }
+        }
+      }
+
+      writePresetChanges(config, presets, removed);
+    }, executor);
+  }
+
+  @Override
+  public CompletableFuture<Void> savePresetChanges(Collection<GlobalPresetData> changed, Collection<String> removed) {
+    return CompletableFuture.runAsync(() -> writePresetChanges(presetsConfig(), changed, removed), executor);
+  }
+
+  private FileConfiguration presetsConfig() {
+    if (presetsConfig == null) {
+      presetsConfig = readPresetsConfig();
+    }
+    return presetsConfig;
+  }
+
+  private FileConfiguration readPresetsConfig() {
+    YamlConfiguration config = new YamlConfiguration();
+    if (!presetsFile.exists()) {
+      presetsDigest = null;
+      return config;
+    }
+    try {
+      // Parse the same bytes that are digested, so an edit in between isn't missed
+      byte[] contents = Files.readAllBytes(presetsFile.toPath());
+      presetsDigest = digest(contents);
+      config.loadFromString(new String(contents, StandardCharsets.UTF_8));
+    } catch (IOException | InvalidConfigurationException e) {
+      plugin.getLogger().log(Level.SEVERE, "Cannot load " + presetsFile, e);
+    }
+    return config;
+  }
+
+  /**
+   * Whether presets.yml differs from what this backend last read or wrote, meaning
+   * it was changed by hand. Safe to call from any thread.
+   */
+  public boolean isPresetsFileChanged() {
+    byte[] current;
+    try {
+      current = presetsFile.exists() ? digest(Files.readAllBytes(presetsFile.toPath())) : null;
+    } catch (IOException e) {
+      return true;
+    }
+    return !Arrays.equals(current, presetsDigest);
+  }
+
+  private static byte[] digest(byte[] contents) {
+    try {
+      return MessageDigest.getInstance("SHA-256").digest(contents);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private void writePresetChanges(FileConfiguration config, Collection<GlobalPresetData> changed,
+      Collection<String> removed) {
+    for (String presetName : removed) {
+      config.set("presets." + presetName, null);
+    }
+    // Existing sections keep their place and comments, new ones are added at the end
+    for (GlobalPresetData preset : changed) {
+      String path = "presets." + preset.getName();
+      config.set(path + ".colors", preset.getColors());
+      config.set(path + ".permission", preset.getPermission());
+    }
+
+    save(config, presetsFile);
+    presetsDigest = digest(config.saveToString().getBytes(StandardCharsets.UTF_8));
+  }
+
+  @Override
+  public void close() {
+    // Leave a compact snapshot so the next startup has nothing to replay
+    executor.execute(() -> {
+      compactQuietly();
+      try {
+        journal.close();
+      } catch (IOException e) {
+        plugin.getLogger().log(Level.WARNING, "Error closing user data journal", e);
+      }
+    });
+    executor.close(30, TimeUnit.SECONDS);
+  }
+
+  private void ensureLoaded() {
+    if (equips != null) {
+      return;
+    }
+
+    Map<UUID, String> loaded = new HashMap<>();
+    try {
+      if (binaryFormat) {
+        snapshot = openSnapshot();
+      } else {
+        loaded.putAll(readEquips());
+      }
+
+      int replayed = journal.replay((playerUuid, preset) -> {
+        if (binaryFormat || !preset.equals(UNEQUIPPED)) {
+          loaded.put(playerUuid, preset);
+        } else {
+          loaded.remove(playerUuid);
+        }
+      });
+      if (replayed > 0) {
+        plugin.getLogger().info("Replayed " + replayed + " user data changes from the journal");
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    equips = loaded;
+  }
+
+  private String lookup(UUID playerUuid) {
+    ensureLoaded();
+    String preset = equips.get(playerUuid);
+    if (preset == null && snapshot != null) {
+      return snapshot.lookup(playerUuid);
+    }
+    return preset == null || preset.equals(UNEQUIPPED) ? null : preset;
+  }
+
+  private Map<UUID, String> allEquips() {
+    ensureLoaded();
+    if (!binaryFormat) {
+      return new HashMap<>(equips);
+    }
+
+    Map<UUID, String> all = new HashMap<>();
+    if (snapshot != null) {
+      snapshot.forEach(all::put);
+    }
+    apply(all, equips);
+    return all;
+  }
+
+  private static void apply(Map<UUID, String> target, Map<UUID, String> changes) {
+    for (Map.Entry<UUID, String> change : changes.entrySet()) {
+      if (change.getValue().equals(UNEQUIPPED)) {
+        target.remove(change.getKey());
+      } else {
+        target.put(change.getKey(), change.getValue());
+      }
+    }
+  }
+
+  /**
+   * Opens the newest userdata.bin generation, converting userdata.yml first if that
+   * is all there is.
+   *
+   * @return null if there is no user data yet
+   */
+  private BinarySnapshot openSnapshot() throws IOException {
+    List<Long> generations = snapshotGenerations();
+    if (generations.isEmpty() && userDataFile.exists()) {
+      Map<UUID, String> converted = readEquips();
+      BinarySnapshot.write(snapshotFile(0), converted);
+      File backup = new File(userDataFile.getParentFile(), userDataFile.getName() + ".converted");
+      AtomicFiles.replace(userDataFile.toPath(), backup.toPath());
+      plugin.getLogger().info("Converted " + converted.size() + " players from userdata.yml to userdata.bin, "
+          + "the old file was kept as " + backup.getName());
+      generations = List.of(0L);
+    }
+    if (generations.isEmpty()) {
+      return null;
+    }
+
+    snapshotGeneration = generations.get(generations.size() - 1);
+    for (long generation : generations.subList(0, generations.size() - 1)) {
+      deleteSnapshot(generation);
+    }
+    return BinarySnapshot.open(snapshotFile(snapshotGeneration));
+  }
+
+  private File snapshotFile(long generation) {
+    String name = generation == 0 ? "userdata.bin" : "userdata." + generation + ".bin";
+    return new File(plugin.getDataFolder(), name);
+  }
+
+  /**
+   * The snapshot generations on disk, oldest first. userdata.bin is generation 0.
+   */
+  private List<Long> snapshotGenerations() {
+    List<Long> generations = new ArrayList<>();
+    File[] files = plugin.getDataFolder().listFiles();
+    if (files == null) {
+      return generations;
+    }
+    for (File file : files) {
+      Matcher matcher = SNAPSHOT_NAME.matcher(file.getName());
+      if (matcher.matches()) {
+        generations.add(matcher.group(1) == null ? 0L : Long.parseLong(matcher.group(1)));
+      }
+    }
+    Collections.sort(generations);
+    return generations;
+  }
+
+  private void deleteSnapshot(long generation) {
+    try {
+      Files.deleteIfExists(snapshotFile(generation).toPath());
+    } catch (IOException e) {
+      // Still mapped somewhere (Windows refuses the delete); the next start retries
+      plugin.getLogger().fine("Could not delete " + snapshotFile(generation).getName() + " yet: " + e);
+    }
+  }
+
+  private void compactQuietly() {
+    try {
+      if (equips != null && journal.size() > 0) {
+        compact();
+      }
+    } catch (IOException e) {
+      plugin.getLogger().log(Level.WARNING, "Error compacting user data journal", e);
+    }
+  }
+
+  /**
+   * Writes everything to a new snapshot and empties the journal. If the server dies
+   * in between, the journal is replayed over the new snapshot, which is harmless.
+   */
+  private void compact() throws IOException {
+    if (binaryFormat) {
+      long previous = snapshotGeneration;
+      long next = previous + 1;
+      BinarySnapshot.write(snapshotFile(next), allEquips());
+      snapshot = BinarySnapshot.open(snapshotFile(next));
+      snapshotGeneration = next;
+      equips.clear();
+      // Snapshots handed out by snapshotEquips() may still map the old file
+      if (previous >= 0) {
+        deleteSnapshot(previous);
+      }
+    } else {
+      FileConfiguration config = new YamlConfiguration();
+      for (Map.Entry<UUID, String> entry : equips.entrySet()) {
+        config.set("users." + entry.getKey().toString() + ".equipped", entry.getValue());
+      }
+      AtomicFiles.save(config, userDataFile);
+      // Don't let a binary snapshot left from an earlier format shadow this one later
+      for (long generation : snapshotGenerations()) {
+        deleteSnapshot(generation);
+      }
+    }
+    journal.reset();
+  }
+
+  private Map<UUID, String> readEquips() throws IOException {
+    Map<UUID, String> loaded = new HashMap<>();
+    if (!userDataFile.exists()) {
+      // Switched back from the binary format; the next compaction writes userdata.yml
+      // Read into the heap, a mapping would keep the file from being deleted on Windows
+      List<Long> generations = snapshotGenerations();
+      if (!generations.isEmpty()) {
+        BinarySnapshot.read(snapshotFile(generations.get(generations.size() - 1))).forEach(loaded::put);
+      }
+      return loaded;
+    }
+
+    FileConfiguration config = YamlConfiguration.loadConfiguration(userDataFile);
+    ConfigurationSection section = config.getConfigurationSection("users");
+    if (section == null) {
+      return loaded;
+    }
+
+    for (String uuidString : section.getKeys(false)) {
+      try {
+        UUID uuid = UUID.fromString(uuidString);
+        String preset = section.getString(uuidString + ".equipped");
+
+        if (preset != null && !preset.isEmpty()) {
+          loaded.put(uuid, preset);
+        }
+      } catch (IllegalArgumentException e) {
+        plugin.getLogger().warning("Invalid UUID in userdata.yml: " + uuidString);
+      }
+    }
+    return loaded;
+  }
+
+  private static void save(FileConfiguration config, File file) {
+    try {
+      AtomicFiles.save(config, file);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
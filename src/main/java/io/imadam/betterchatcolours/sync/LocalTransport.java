@@ -0,0 +1,42 @@
+package io.imadam.betterchatcolours.sync;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Delivers messages to every other local transport in the same JVM. For testing
+ * sync without a proxy, e.g. two SyncManagers wired together in one process.
+ */
+public class LocalTransport implements SyncTransport {
+
+  private static final List<LocalTransport> BUS = new CopyOnWriteArrayList<>();
+
+  private volatile Consumer<byte[]> receiver;
+
+  @Override
+  public String getName() {
+    return "local";
+  }
+
+  @Override
+  public void start(Consumer<byte[]> receiver) {
+    this.receiver = receiver;
+    BUS.add(this);
+  }
+
+  @Override
+  public void publish(byte[] message) {
+    for (LocalTransport transport : BUS) {
+      if (transport != this && transport.receiver != null) {
+        transport.receiver.accept(message.clone());
+      }
+    }
+  }
+
+  @Override
+  public void close() {
+    BUS.remove(this);
+    receiver = null;
+  }
+}
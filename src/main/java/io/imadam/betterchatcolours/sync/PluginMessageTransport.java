@@ -0,0 +1,125 @@
+package io.imadam.betterchatcolours.sync;
+
+import io.imadam.betterchatcolours.BetterChatColours;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.HandlerList;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.plugin.messaging.PluginMessageListener;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+
+/**
+ * Sends messages through the proxy with the BungeeCord "Forward" sub-channel
+ * (also understood by Velocity). Plugin messages need a player connection to
+ * travel over, so messages published while the server is empty are held until
+ * someone joins.
+ */
+public class PluginMessageTransport implements SyncTransport, PluginMessageListener, Listener {
+
+  private static final String CHANNEL = "BungeeCord";
+  private static final String SUB_CHANNEL = "BetterChatColours";
+  private static final int MAX_QUEUED = 1000;
+
+  private final BetterChatColours plugin;
+  private final Queue<byte[]> queued = new ConcurrentLinkedQueue<>();
+  private Consumer<byte[]> receiver;
+
+  public PluginMessageTransport(BetterChatColours plugin) {
+    this.plugin = plugin;
+  }
+
+  @Override
+  public String getName() {
+    return "plugin-messaging";
+  }
+
+  @Override
+  public void start(Consumer<byte[]> receiver) {
+    this.receiver = receiver;
+    plugin.getServer().getMessenger().registerOutgoingPluginChannel(plugin, CHANNEL);
+    plugin.getServer().getMessenger().registerIncomingPluginChannel(plugin, CHANNEL, this);
+    plugin.getServer().getPluginManager().registerEvents(this, plugin);
+  }
+
+  @Override
+  public void publish(byte[] message) {
+    if (queued.size() >= MAX_QUEUED) {
+      queued.poll();
+    }
+    queued.add(message);
+    sendQueued();
+  }
+
+  @Override
+  public void close() {
+    plugin.getServer().getMessenger().unregisterOutgoingPluginChannel(plugin, CHANNEL);
+    plugin.getServer().getMessenger().unregisterIncomingPluginChannel(plugin, CHANNEL, this);
+    HandlerList.unregisterAll(this);
+  }
+
+  @EventHandler(priority = EventPriority.MONITOR)
+  public void onPlayerJoin(PlayerJoinEvent event) {
+    if (!queued.isEmpty()) {
+      // The connection isn't ready for plugin messages during the join event
+      plugin.getTaskScheduler().runGlobalLater(this::sendQueued, 20L);
+    }
+  }
+
+  @Override
+  public void onPluginMessageReceived(String channel, Player player, byte[] message) {
+    if (!channel.equals(CHANNEL)) {
+      return;
+    }
+
+    try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(message))) {
+      if (!in.readUTF().equals(SUB_CHANNEL)) {
+        return;
+      }
+      byte[] payload = new byte[in.readUnsignedShort()];
+      in.readFully(payload);
+      receiver.accept(payload);
+    } catch (IOException e) {
+      // Other plugins' BungeeCord responses don't start with a sub-channel we know
+    }
+  }
+
+  private void sendQueued() {
+    Iterator<? extends Player> players = plugin.getServer().getOnlinePlayers().iterator();
+    if (!players.hasNext()) {
+      return;
+    }
+    Player carrier = players.next();
+
+    byte[] message;
+    while ((message = queued.poll()) != null) {
+      try {
+        carrier.sendPluginMessage(plugin, CHANNEL, wrap(message));
+      } catch (IOException | IllegalArgumentException e) {
+        plugin.getLogger().log(Level.WARNING, "Could not send sync message", e);
+      }
+    }
+  }
+
+  private static byte[] wrap(byte[] message) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream(message.length + 32);
+    DataOutputStream out = new DataOutputStream(bytes);
+    out.writeUTF("Forward");
+    out.writeUTF("ALL");
+    out.writeUTF(SUB_CHANNEL);
+    out.writeShort(message.length);
+    out.write(message);
+    return bytes.toByteArray();
+  }
+}
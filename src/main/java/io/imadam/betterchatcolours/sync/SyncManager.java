@@ -0,0 +1,156 @@
+package io.imadam.betterchatcolours.sync;
+
+import io.imadam.betterchatcolours.BetterChatColours;
+import io.imadam.betterchatcolours.data.GlobalPresetData;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+
+/**
+ * Replicates equips and preset edits between servers. Every change carries a
+ * version from a hybrid clock (wall time, but always ahead of anything seen), and
+ * each key keeps the version it was last changed at, so servers converge on the
+ * last writer no matter what order messages arrive in.
+ */
+public class SyncManager {
+
+  private static final int MAX_TRACKED_EQUIPS = 10000;
+
+  private final BetterChatColours plugin;
+  private final SyncTransport transport;
+  private final UUID serverId = UUID.randomUUID();
+  private final AtomicLong clock = new AtomicLong();
+  // Version each key was last changed at. Synchronized, since a check and its update
+  // must not interleave with a publish from another thread
+  private final Map<String, Stamp> presetVersions = Collections.synchronizedMap(new HashMap<>());
+  private final Map<UUID, Stamp> equipVersions = Collections.synchronizedMap(
+      new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<UUID, Stamp> eldest) {
+          return size() > MAX_TRACKED_EQUIPS;
+        }
+      });
+
+  public SyncManager(BetterChatColours plugin, SyncTransport transport) {
+    this.plugin = plugin;
+    this.transport = transport;
+  }
+
+  public void start() {
+    transport.start(this::receive);
+    plugin.getLogger().info("Syncing presets and equips over " + transport.getName());
+  }
+
+  public void close() {
+    transport.close();
+  }
+
+  public void publishEquip(UUID playerUuid, String presetName) {
+    long version = tick();
+    equipVersions.put(playerUuid, new Stamp(version, serverId));
+    publish(new SyncMessage(SyncMessage.Type.EQUIP, serverId, version, playerUuid.toString(),
+        presetName == null ? "" : presetName, List.of(), ""));
+  }
+
+  public void publishPreset(GlobalPresetData preset) {
+    long version = tick();
+    presetVersions.put(preset.getName(), new Stamp(version, serverId));
+    publish(new SyncMessage(SyncMessage.Type.PRESET, serverId, version, preset.getName(), "",
+        preset.getColors(), preset.getPermission()));
+  }
+
+  public void publishPresetRemoved(String presetName) {
+    long version = tick();
+    presetVersions.put(presetName, new Stamp(version, serverId));
+    publish(new SyncMessage(SyncMessage.Type.PRESET_REMOVED, serverId, version, presetName, "", List.of(), ""));
+  }
+
+  private void publish(SyncMessage message) {
+    transport.publish(message.encode());
+  }
+
+  private long tick() {
+    return clock.updateAndGet(current -> Math.max(current + 1, System.currentTimeMillis()));
+  }
+
+  private void receive(byte[] bytes) {
+    SyncMessage message;
+    try {
+      message = SyncMessage.decode(bytes);
+    } catch (IOException e) {
+      plugin.getLogger().log(Level.WARNING, "Ignoring malformed sync message", e);
+      return;
+    }
+    if (message == null || message.origin.equals(serverId)) {
+      return;
+    }
+
+    // Keep our own clock ahead of everything we've seen, so our next change wins over it
+    clock.accumulateAndGet(message.version, Math::max);
+    if (plugin.getServer().isPrimaryThread()) {
+      apply(message);
+    } else {
+      plugin.getTaskScheduler().runGlobal(() -> apply(message));
+    }
+  }
+
+  private void apply(SyncMessage message) {
+    switch (message.type) {
+      case EQUIP:
+        UUID playerUuid;
+        try {
+          playerUuid = UUID.fromString(message.key);
+        } catch (IllegalArgumentException e) {
+          return;
+        }
+        if (accept(equipVersions, playerUuid, message)) {
+          plugin.getUserDataManager().applyRemoteEquip(playerUuid, message.value.isEmpty() ? null : message.value);
+        }
+        break;
+
+      case PRESET:
+        if (accept(presetVersions, message.key, message)) {
+          plugin.getGlobalPresetManager().applyRemotePreset(
+              new GlobalPresetData(message.key, message.colors, message.permission));
+        }
+        break;
+
+      case PRESET_REMOVED:
+        if (accept(presetVersions, message.key, message)) {
+          plugin.getGlobalPresetManager().applyRemotePresetRemoval(message.key);
+        }
+        break;
+
+      default:
+        break;
+    }
+  }
+
+  private static <K> boolean accept(Map<K, Stamp> versions, K key, SyncMessage message) {
+    synchronized (versions) {
+      Stamp current = versions.get(key);
+      if (current != null && !message.isNewerThan(current.version, current.origin)) {
+        return false;
+      }
+      versions.put(key, new Stamp(message.version, message.origin));
+      return true;
+    }
+  }
+
+  private static final class Stamp {
+    private final long version;
+    private final UUID origin;
+
+    private Stamp(long version, UUID origin) {
+      this.version = version;
+      this.origin = origin;
+    }
+  }
+}
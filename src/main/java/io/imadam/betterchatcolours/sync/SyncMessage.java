@@ -0,0 +1,103 @@
+package io.imadam.betterchatcolours.sync;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * One change to replicate: an equip, a preset definition or a preset removal.
+ * {@code version} orders changes to the same key across servers; ties are broken
+ * by the origin server id so every server picks the same winner.
+ */
+final class SyncMessage {
+
+  private static final int PROTOCOL = 1;
+
+  enum Type {
+    EQUIP,
+    PRESET,
+    PRESET_REMOVED
+  }
+
+  final Type type;
+  final UUID origin;
+  final long version;
+  // Player UUID for equips, preset name otherwise
+  final String key;
+  // Equipped preset name ("" for unequipped); unused for presets
+  final String value;
+  final List<String> colors;
+  final String permission;
+
+  SyncMessage(Type type, UUID origin, long version, String key, String value, List<String> colors,
+      String permission) {
+    this.type = type;
+    this.origin = origin;
+    this.version = version;
+    this.key = key;
+    this.value = value;
+    this.colors = colors;
+    this.permission = permission;
+  }
+
+  /**
+   * Whether this change wins over one with the given version and origin.
+   */
+  boolean isNewerThan(long otherVersion, UUID otherOrigin) {
+    return version != otherVersion ? version > otherVersion : origin.compareTo(otherOrigin) > 0;
+  }
+
+  byte[] encode() {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+    try (DataOutputStream out = new DataOutputStream(bytes)) {
+      out.writeByte(PROTOCOL);
+      out.writeByte(type.ordinal());
+      out.writeLong(origin.getMostSignificantBits());
+      out.writeLong(origin.getLeastSignificantBits());
+      out.writeLong(version);
+      out.writeUTF(key);
+      out.writeUTF(value);
+      out.writeShort(colors.size());
+      for (String color : colors) {
+        out.writeUTF(color);
+      }
+      out.writeUTF(permission);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return bytes.toByteArray();
+  }
+
+  /**
+   * @return the message, or null if it was written by an incompatible version
+   */
+  static SyncMessage decode(byte[] message) throws IOException {
+    try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(message))) {
+      if (in.readUnsignedByte() != PROTOCOL) {
+        return null;
+      }
+      int typeIndex = in.readUnsignedByte();
+      if (typeIndex >= Type.values().length) {
+        return null;
+      }
+      Type type = Type.values()[typeIndex];
+      UUID origin = new UUID(in.readLong(), in.readLong());
+      long version = in.readLong();
+      String key = in.readUTF();
+      String value = in.readUTF();
+      int colorCount = in.readUnsignedShort();
+      List<String> colors = new ArrayList<>(colorCount);
+      for (int i = 0; i < colorCount; i++) {
+        colors.add(in.readUTF());
+      }
+      String permission = in.readUTF();
+      return new SyncMessage(type, origin, version, key, value, colors, permission);
+    }
+  }
+}
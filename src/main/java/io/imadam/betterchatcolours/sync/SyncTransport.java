@@ -0,0 +1,25 @@
+package io.imadam.betterchatcolours.sync;
+
+import java.util.function.Consumer;
+
+/**
+ * Carries encoded {@link SyncMessage}s between servers. Implementations only move
+ * bytes; ordering and conflict handling are up to {@link SyncManager}.
+ */
+public interface SyncTransport {
+
+  String getName();
+
+  /**
+   * Starts delivering messages from other servers to {@code receiver}. Messages this
+   * server published may be delivered back and are ignored by the receiver.
+   */
+  void start(Consumer<byte[]> receiver);
+
+  /**
+   * Sends to every other server. Called from whichever thread made the change.
+   */
+  void publish(byte[] message);
+
+  void close();
+}
@@ -0,0 +1,319 @@
+package io.imadam.betterchatcolours.transfer;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import io.imadam.betterchatcolours.BetterChatColours;
+import io.imadam.betterchatcolours.data.GlobalPresetData;
+import io.imadam.betterchatcolours.render.GradientRenderer;
+import io.imadam.betterchatcolours.scheduler.IoLane;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.format.NamedTextColor;
+import org.bukkit.entity.Player;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+
+/**
+ * /chatcolors export and import: presets and equips as JSON Lines in the
+ * transfers folder, one record per line:
+ * <pre>
+ * {"type":"preset","name":"lava","colors":["#b22222","#ffd700"],"permission":"chatcolor.preset.lava"}
+ * {"type":"equip","uuid":"...","preset":"lava"}
+ * </pre>
+ * Files are streamed a line at a time on a background thread. Imports are
+ * validated and compiled there and applied on the main thread in batches, one
+ * batch in flight at a time, so memory use doesn't grow with the file.
+ */
+public class DataTransfer {
+
+  private static final int BATCH_SIZE = 500;
+  private static final long PROGRESS_INTERVAL_MILLIS = 2000;
+  private static final int MAX_REPORTED_ERRORS = 5;
+
+  private final BetterChatColours plugin;
+  private final File directory;
+  private final IoLane executor;
+  private final AtomicBoolean running = new AtomicBoolean();
+
+  public DataTransfer(BetterChatColours plugin) {
+    this.plugin = plugin;
+    this.directory = new File(plugin.getDataFolder(), "transfers");
+    this.executor = plugin.getIoExecutor().newLane("Transfer");
+  }
+
+  public void close() {
+    executor.closeNow();
+  }
+
+  public boolean isRunning() {
+    return running.get();
+  }
+
+  public void startExport(Player player, String fileName) {
+    File file = resolve(player, fileName);
+    if (file != null && begin(player)) {
+      executor.execute(() -> run(player, "Export", () -> export(player, file)));
+    }
+  }
+
+  public void startImport(Player player, String fileName) {
+    File file = resolve(player, fileName);
+    if (file == null || !begin(player)) {
+      return;
+    }
+    if (!file.isFile()) {
+      running.set(false);
+      send(player, "No such file: transfers/" + file.getName(), NamedTextColor.RED);
+      return;
+    }
+    executor.execute(() -> run(player, "Import", () -> importFile(player, file)));
+  }
+
+  private boolean begin(Player player) {
+    if (plugin.getStorageMigration().isRunning() || !running.compareAndSet(false, true)) {
+      send(player, "An import, export or migration is already running.", NamedTextColor.RED);
+      return false;
+    }
+    return true;
+  }
+
+  private void run(Player player, String operation, Runnable task) {
+    try {
+      task.run();
+    } catch (RuntimeException e) {
+      plugin.getLogger().log(Level.SEVERE, operation + " failed", e);
+      send(player, operation + " failed: " + e.getMessage(), NamedTextColor.RED);
+    } finally {
+      running.set(false);
+    }
+  }
+
+  private File resolve(Player player, String fileName) {
+    if (fileName.isEmpty() || fileName.contains("/") || fileName.contains("\\") || fileName.startsWith(".")) {
+      send(player, "Invalid file name: " + fileName, NamedTextColor.RED);
+      return null;
+    }
+    return new File(directory, fileName.endsWith(".jsonl") ? fileName : fileName + ".jsonl");
+  }
+
+  private void export(Player player, File file) {
+    long start = System.currentTimeMillis();
+    // Include equips that are still waiting to be written
+    plugin.getUserDataManager().flush().join();
+
+    directory.mkdirs();
+    File tempFile = new File(directory, file.getName() + ".tmp");
+    int presets = 0;
+    int[] equips = new int[1];
+    try (BufferedWriter writer = Files.newBufferedWriter(tempFile.toPath(), StandardCharsets.UTF_8)) {
+      for (GlobalPresetData preset : plugin.getGlobalPresetManager().getRegistry().values()) {
+        JsonObject record = new JsonObject();
+        record.addProperty("type", "preset");
+        record.addProperty("name", preset.getName());
+        JsonArray colors = new JsonArray();
+        for (String color : preset.getColors()) {
+          colors.add(color);
+        }
+        record.add("colors", colors);
+        record.addProperty("permission", preset.getPermission());
+        writeLine(writer, record);
+        presets++;
+      }
+
+      // Runs on the storage thread, which streams equips without loading them all
+      Progress progress = new Progress(player, "Exporting");
+      plugin.getStorage().forEachEquip((playerUuid, preset) -> {
+        JsonObject record = new JsonObject();
+        record.addProperty("type", "equip");
+        record.addProperty("uuid", playerUuid.toString());
+        record.addProperty("preset", preset);
+        writeLine(writer, record);
+        progress.update(++equips[0] + " equips");
+      }).join();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+
+    try {
+      Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    send(player, "Exported " + presets + " presets and " + equips[0] + " equips to transfers/" + file.getName()
+        + " in " + (System.currentTimeMillis() - start) + " ms.", NamedTextColor.GREEN);
+  }
+
+  private static void writeLine(BufferedWriter writer, JsonObject record) {
+    try {
+      writer.write(record.toString());
+      writer.newLine();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private void importFile(Player player, File file) {
+    long start = System.currentTimeMillis();
+    List<GlobalPresetData> presetBatch = new ArrayList<>();
+    Map<UUID, String> equipBatch = new HashMap<>();
+    // Presets known to exist, so equips can be checked against them
+    Set<String> presetNames = new HashSet<>(plugin.getGlobalPresetManager().getRegistry().asMap().keySet());
+    int presets = 0;
+    int equips = 0;
+    int errors = 0;
+    int lineNumber = 0;
+    Progress progress = new Progress(player, "Importing");
+
+    try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        lineNumber++;
+        if (line.isBlank()) {
+          continue;
+        }
+
+        String error;
+        try {
+          JsonObject record = JsonParser.parseString(line).getAsJsonObject();
+          String type = string(record, "type");
+          if ("preset".equals(type)) {
+            GlobalPresetData preset = parsePreset(record);
+            error = preset == null ? "invalid preset" : null;
+            if (preset != null) {
+              presetBatch.add(preset);
+              presetNames.add(preset.getName());
+              presets++;
+            }
+          } else if ("equip".equals(type)) {
+            String preset = string(record, "preset");
+            UUID playerUuid = UUID.fromString(string(record, "uuid"));
+            error = preset == null || !presetNames.contains(preset) ? "unknown preset " + preset : null;
+            if (error == null) {
+              equipBatch.put(playerUuid, preset);
+              equips++;
+            }
+          } else {
+            error = "unknown record type " + type;
+          }
+        } catch (JsonParseException | IllegalStateException | IllegalArgumentException | NullPointerException e) {
+          error = "malformed record";
+        }
+
+        if (error != null && ++errors <= MAX_REPORTED_ERRORS) {
+          send(player, "Line " + lineNumber + " skipped: " + error, NamedTextColor.YELLOW);
+        }
+
+        // Presets go first, so the equips that follow can refer to them
+        if (presetBatch.size() >= BATCH_SIZE || equipBatch.size() >= BATCH_SIZE) {
+          applyBatch(presetBatch, equipBatch);
+        }
+        progress.update(lineNumber + " lines, " + presets + " presets, " + equips + " equips");
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    applyBatch(presetBatch, equipBatch);
+
+    send(player, "Imported " + presets + " presets and " + equips + " equips from transfers/" + file.getName()
+        + " in " + (System.currentTimeMillis() - start) + " ms" + (errors > 0 ? ", skipped " + errors + " lines." : "."),
+        errors > 0 ? NamedTextColor.YELLOW : NamedTextColor.GREEN);
+  }
+
+  /**
+   * Hands a batch to the main thread and waits, so at most one batch is held.
+   */
+  private void applyBatch(List<GlobalPresetData> presetBatch, Map<UUID, String> equipBatch) {
+    if (!presetBatch.isEmpty()) {
+      List<GlobalPresetData> batch = List.copyOf(presetBatch);
+      presetBatch.clear();
+      CompletableFuture.runAsync(() -> plugin.getGlobalPresetManager().importPresets(batch),
+          plugin.getMainThreadExecutor()).join();
+    }
+    if (!equipBatch.isEmpty()) {
+      Map<UUID, String> batch = Map.copyOf(equipBatch);
+      equipBatch.clear();
+      CompletableFuture.supplyAsync(() -> plugin.getUserDataManager().importEquips(batch),
+          plugin.getMainThreadExecutor()).thenCompose(write -> write).join();
+    }
+  }
+
+  /**
+   * @return the compiled preset, or null if the record isn't a valid preset
+   */
+  private static GlobalPresetData parsePreset(JsonObject record) {
+    String name = string(record, "name");
+    // Dots would be read as nested sections in presets.yml
+    if (name == null || name.isEmpty() || name.length() > 64 || name.contains(".") || name.contains(" ")) {
+      return null;
+    }
+
+    JsonElement colorsElement = record.get("colors");
+    if (colorsElement == null || !colorsElement.isJsonArray()) {
+      return null;
+    }
+    List<String> colors = new ArrayList<>();
+    for (JsonElement color : colorsElement.getAsJsonArray()) {
+      colors.add(color.getAsString());
+    }
+    if (colors.isEmpty() || GradientRenderer.parseColors(colors) == null) {
+      return null;
+    }
+
+    String permission = string(record, "permission");
+    return new GlobalPresetData(name, colors, permission == null ? "chatcolor.preset." + name.toLowerCase() : permission);
+  }
+
+  private static String string(JsonObject record, String property) {
+    JsonElement element = record.get(property);
+    return element == null || !element.isJsonPrimitive() ? null : element.getAsString();
+  }
+
+  private void send(Player player, String message, NamedTextColor color) {
+    plugin.getMainThreadExecutor().execute(() -> {
+      if (player.isOnline()) {
+        player.sendMessage(Component.text(message, color));
+      }
+    });
+  }
+
+  /**
+   * Sends a progress line at most every couple of seconds.
+   */
+  private final class Progress {
+    private final Player player;
+    private final String label;
+    private long lastReport = System.currentTimeMillis();
+
+    private Progress(Player player, String label) {
+      this.player = player;
+      this.label = label;
+    }
+
+    private void update(String status) {
+      long now = System.currentTimeMillis();
+      if (now - lastReport >= PROGRESS_INTERVAL_MILLIS) {
+        lastReport = now;
+        send(player, label + "... " + status, NamedTextColor.GRAY);
+      }
+    }
+  }
+}
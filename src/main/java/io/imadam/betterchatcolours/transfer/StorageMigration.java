@@ -0,0 +1,341 @@
+package io.imadam.betterchatcolours.transfer;
+
+import io.imadam.betterchatcolours.BetterChatColours;
+import io.imadam.betterchatcolours.data.GlobalPresetData;
+import io.imadam.betterchatcolours.data.PresetRegistry;
+import io.imadam.betterchatcolours.data.UserDataManager;
+import io.imadam.betterchatcolours.scheduler.IoLane;
+import io.imadam.betterchatcolours.storage.EquipSnapshot;
+import io.imadam.betterchatcolours.storage.StorageBackend;
+import io.imadam.betterchatcolours.storage.StorageBackends;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.format.NamedTextColor;
+import org.bukkit.entity.Player;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiConsumer;
+import java.util.logging.Level;
+
+/**
+ * /chatcolors migrate: copies presets and equips from the live storage to
+ * another backend while the server keeps using the live one, then switches.
+ * <p>
+ * Equips are read from a snapshot of the source, so the live storage thread
+ * keeps serving the server during the copy. Writes that land on the source
+ * meanwhile are tracked by {@link UserDataManager#trackWrites} and copied again;
+ * then, with the write-behind flush held, both sides are compared by count and
+ * checksum. Only the switch itself runs on the main thread.
+ */
+public class StorageMigration {
+
+  private static final int CHUNK_SIZE = 1000;
+  private static final long PROGRESS_INTERVAL_MILLIS = 2000;
+
+  private final BetterChatColours plugin;
+  private final IoLane executor;
+  private final AtomicBoolean running = new AtomicBoolean();
+
+  public StorageMigration(BetterChatColours plugin) {
+    this.plugin = plugin;
+    this.executor = plugin.getIoExecutor().newLane("Migration");
+  }
+
+  public void close() {
+    executor.closeNow();
+  }
+
+  public boolean isRunning() {
+    return running.get();
+  }
+
+  public void start(Player player, String from, String to) {
+    String liveType = plugin.getStorage().getName();
+    if (!StorageBackends.TYPES.contains(from) || !StorageBackends.TYPES.contains(to)) {
+      send(player, "Storage types: " + String.join(", ", StorageBackends.TYPES), NamedTextColor.RED);
+      return;
+    }
+    if (!from.equals(liveType)) {
+      send(player, "Storage is currently " + liveType + ", migrate from there.", NamedTextColor.RED);
+      return;
+    }
+    if (from.equals(to)) {
+      send(player, "Already using " + to + " storage.", NamedTextColor.RED);
+      return;
+    }
+    if (plugin.getDataTransfer().isRunning() || !running.compareAndSet(false, true)) {
+      send(player, "An import, export or migration is already running.", NamedTextColor.RED);
+      return;
+    }
+
+    send(player, "Migrating from " + from + " to " + to + " storage...", NamedTextColor.YELLOW);
+    executor.execute(() -> {
+      StorageBackend target = StorageBackends.create(plugin, to);
+      Map<UUID, String> tracker = new ConcurrentHashMap<>();
+      boolean switched = false;
+      try {
+        switched = migrate(player, plugin.getStorage(), target, tracker);
+      } catch (RuntimeException e) {
+        plugin.getLogger().log(Level.SEVERE, "Migration to " + to + " failed", e);
+        send(player, "Migration failed: " + e.getMessage(), NamedTextColor.RED);
+      } finally {
+        plugin.getUserDataManager().stopTrackingWrites();
+        if (!switched) {
+          target.close();
+        }
+        running.set(false);
+      }
+    });
+  }
+
+  /**
+   * @return whether the target is now the live storage
+   */
+  private boolean migrate(Player player, StorageBackend source, StorageBackend target, Map<UUID, String> tracker) {
+    long start = System.currentTimeMillis();
+    UserDataManager userData = plugin.getUserDataManager();
+    // Everything written from here on is copied again after the bulk copy
+    userData.trackWrites(tracker);
+    userData.flush().join();
+    flushPresetChanges();
+
+    target.init().join();
+    clearEquips(target);
+
+    Map<String, GlobalPresetData> presets = source.loadPresets().join();
+    target.savePresets(presets.values()).join();
+    if (!samePresets(presets, target.loadPresets().join())) {
+      send(player, "Migration aborted: presets differ after copying.", NamedTextColor.RED);
+      return false;
+    }
+
+    int copied;
+    try (EquipSnapshot snapshot = source.snapshotEquips().join()) {
+      copied = copyEquips(player, snapshot, target);
+    }
+    copyTracked(target, tracker);
+
+    // With the flush held nothing reaches the source, so both sides must now be identical
+    Verification verification = userData.withWritesHeld(() -> {
+      copyTracked(target, tracker);
+      return new Verification(Checksum.of(source), Checksum.of(target));
+    }).join();
+    if (!verification.source().equals(verification.target())) {
+      send(player, "Migration aborted: " + verification.source() + " in " + source.getName() + " but "
+          + verification.target() + " in " + target.getName() + ".", NamedTextColor.RED);
+      return false;
+    }
+
+    flushPresetChanges();
+    PresetRegistry copiedPresets = plugin.getGlobalPresetManager().getRegistry();
+    target.savePresets(copiedPresets.values()).join();
+
+    StorageBackend previous = CompletableFuture.supplyAsync(() -> {
+      // Presets edited since the copy are queued ahead of anything written after the switch
+      PresetRegistry current = plugin.getGlobalPresetManager().getRegistry();
+      if (current != copiedPresets) {
+        target.savePresets(current.values()).whenComplete((result, e) -> {
+          if (e != null) {
+            plugin.getLogger().log(Level.SEVERE, "Error saving presets", e);
+          }
+        });
+      }
+      return plugin.switchStorage(target);
+    }, plugin.getMainThreadExecutor()).join();
+
+    // Flushes that read the old storage before the switch are tracked; replay them in order with later ones
+    try {
+      userData.withWritesHeld(() -> {
+        userData.stopTrackingWrites();
+        copyTracked(target, tracker);
+        return null;
+      }).join();
+    } catch (RuntimeException e) {
+      plugin.getLogger().log(Level.SEVERE, "Error copying the last equips to " + target.getName(), e);
+    }
+    previous.close();
+
+    send(player, "Migrated " + presets.size() + " presets and " + copied + " equips to " + target.getName()
+        + " storage in " + formatSeconds(System.currentTimeMillis() - start) + ", verified "
+        + verification.source() + ".", NamedTextColor.GREEN);
+    return true;
+  }
+
+  private void flushPresetChanges() {
+    CompletableFuture.supplyAsync(plugin.getGlobalPresetManager()::flushChanges, plugin.getMainThreadExecutor())
+        .thenCompose(flush -> flush).join();
+  }
+
+  /**
+   * Removes equips left in the target by an earlier run, so it ends up an exact copy.
+   */
+  private void clearEquips(StorageBackend target) {
+    List<UUID> stale = new ArrayList<>();
+    target.forEachEquip((playerUuid, preset) -> stale.add(playerUuid)).join();
+    for (int from = 0; from < stale.size(); from += CHUNK_SIZE) {
+      Map<UUID, String> chunk = new HashMap<>();
+      for (UUID playerUuid : stale.subList(from, Math.min(stale.size(), from + CHUNK_SIZE))) {
+        chunk.put(playerUuid, StorageBackend.UNEQUIPPED);
+      }
+      target.saveEquips(chunk).join();
+    }
+  }
+
+  /**
+   * Writes the snapshot to the target in chunks. The next chunk is read while the
+   * previous one is being written.
+   */
+  private int copyEquips(Player player, EquipSnapshot snapshot, StorageBackend target) {
+    EquipCopier copier = new EquipCopier(player, target, snapshot.size());
+    snapshot.forEach(copier);
+    copier.finish();
+    return copier.copied;
+  }
+
+  private static String progress(int copied, int total, long elapsedMillis) {
+    double perSecond = copied * 1000.0 / Math.max(1, elapsedMillis);
+    String status = copied + "/" + total + " equips, " + Math.round(perSecond) + "/s";
+    if (copied < total && perSecond > 0) {
+      status += ", about " + formatSeconds((long) ((total - copied) / perSecond * 1000)) + " left";
+    }
+    return status;
+  }
+
+  private static String formatSeconds(long millis) {
+    return String.format("%.1fs", millis / 1000.0);
+  }
+
+  /**
+   * Copies the tracked writes made so far. Entries are only removed if they
+   * weren't written again while being copied.
+   */
+  private static void copyTracked(StorageBackend target, Map<UUID, String> tracker) {
+    if (tracker.isEmpty()) {
+      return;
+    }
+    Map<UUID, String> changes = new HashMap<>(tracker);
+    target.saveEquips(changes).join();
+    changes.forEach(tracker::remove);
+  }
+
+  private static boolean samePresets(Map<String, GlobalPresetData> expected, Map<String, GlobalPresetData> actual) {
+    if (expected.size() != actual.size()) {
+      return false;
+    }
+    for (GlobalPresetData preset : expected.values()) {
+      GlobalPresetData copy = actual.get(preset.getName());
+      if (copy == null || !preset.hasSameDefinition(copy)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private void send(Player player, String message, NamedTextColor color) {
+    plugin.getMainThreadExecutor().execute(() -> {
+      if (player.isOnline()) {
+        player.sendMessage(Component.text(message, color));
+      }
+    });
+  }
+
+  private final class EquipCopier implements BiConsumer<UUID, String> {
+    private final Player player;
+    private final StorageBackend target;
+    private final int total;
+    private final long start = System.currentTimeMillis();
+    private long lastReport = start;
+    private Map<UUID, String> chunk = new HashMap<>();
+    private CompletableFuture<Void> writing = CompletableFuture.completedFuture(null);
+    private int copied;
+
+    private EquipCopier(Player player, StorageBackend target, int total) {
+      this.player = player;
+      this.target = target;
+      this.total = total;
+    }
+
+    @Override
+    public void accept(UUID playerUuid, String preset) {
+      chunk.put(playerUuid, preset);
+      if (chunk.size() == CHUNK_SIZE) {
+        write();
+      }
+    }
+
+    void finish() {
+      if (!chunk.isEmpty()) {
+        write();
+      }
+      writing.join();
+    }
+
+    private void write() {
+      writing.join();
+      writing = target.saveEquips(chunk);
+      copied += chunk.size();
+      chunk = new HashMap<>();
+
+      long now = System.currentTimeMillis();
+      if (now - lastReport >= PROGRESS_INTERVAL_MILLIS) {
+        lastReport = now;
+        send(player, "Migrating... " + progress(copied, total, now - start), NamedTextColor.GRAY);
+      }
+    }
+  }
+
+  private record Verification(Checksum source, Checksum target) {
+  }
+
+  /**
+   * Record count plus an order independent hash of every (player, preset) pair.
+   */
+  private static final class Checksum {
+    private long count;
+    private long sum;
+
+    static Checksum of(StorageBackend storage) {
+      Checksum checksum = new Checksum();
+      try (EquipSnapshot snapshot = storage.snapshotEquips().join()) {
+        snapshot.forEach(checksum::add);
+      }
+      return checksum;
+    }
+
+    private void add(UUID playerUuid, String preset) {
+      long hash = mix(playerUuid.getMostSignificantBits());
+      hash = mix(hash ^ playerUuid.getLeastSignificantBits());
+      sum += mix(hash ^ preset.hashCode());
+      count++;
+    }
+
+    // SplitMix64 finalizer
+    private static long mix(long z) {
+      z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+      z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+      return z ^ (z >>> 31);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      return other instanceof Checksum checksum && count == checksum.count && sum == checksum.sum;
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(count, sum);
+    }
+
+    @Override
+    public String toString() {
+      return count + " equips, checksum " + Long.toHexString(sum);
+    }
+  }
+}
@@ -0,0 +1,67 @@
+package io.imadam.betterchatcolours.render;
+
+import io.imadam.betterchatcolours.data.GlobalPresetData;
+import net.kyori.adventure.text.minimessage.MiniMessage;
+import net.kyori.adventure.text.serializer.legacy.LegacyComponentSerializer;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * The native renderer must produce exactly what the MiniMessage route produces
+ * for plain text.
+ */
+class GradientRendererTest {
+
+  // What LegacyComponentSerializer.legacySection() resolves to on Paper
+  private static final LegacyComponentSerializer PAPER_LEGACY = LegacyComponentSerializer.builder()
+      .character(LegacyComponentSerializer.SECTION_CHAR)
+      .hexColors()
+      .useUnusualXRepeatedCharacterHexFormat()
+      .build();
+
+  private static final List<GlobalPresetData> PRESETS = List.of(
+      new GlobalPresetData("mint", List.of("#3EB489"), ""),
+      new GlobalPresetData("aqua", List.of("#55FFFF"), ""),
+      new GlobalPresetData("ocean", List.of("#00C6FF", "#0072FF"), ""),
+      new GlobalPresetData("sunset", List.of("#FF5555", "#FFAA00"), ""),
+      new GlobalPresetData("rainbow", List.of("#FF0000", "#FFFF00", "#00FF00", "#00FFFF", "#0000FF"), ""));
+
+  private static final List<String> MESSAGES = List.of(
+      "a",
+      "hi",
+      "Hello",
+      "Hello world",
+      "The quick brown fox jumps over the lazy dog");
+
+  static Stream<Arguments> presetsAndMessages() {
+    return PRESETS.stream().flatMap(preset -> MESSAGES.stream().map(message -> Arguments.of(preset, message)));
+  }
+
+  @ParameterizedTest
+  @MethodSource("presetsAndMessages")
+  void matchesMiniMessage(GlobalPresetData preset, String message) {
+    String expected = PAPER_LEGACY.serialize(
+        MiniMessage.miniMessage().deserialize(preset.getGradientTag() + message + preset.getClosingTag()));
+
+    assertEquals(expected, GradientRenderer.render(preset.getRgb(), message), preset.getName());
+  }
+
+  @ParameterizedTest
+  @MethodSource("presetsAndMessages")
+  void cachedRampMatchesMiniMessage(GlobalPresetData preset, String message) {
+    String expected = PAPER_LEGACY.serialize(
+        MiniMessage.miniMessage().deserialize(preset.getGradientTag() + message + preset.getClosingTag()));
+
+    // The same branches ChatColorsExpansion takes for plain text
+    String rendered = preset.getRgb().length == 1
+        ? LegacyWriter.write(preset.getLegacyPrefix(), message)
+        : GradientRenderer.render(preset.getRamp(message.codePointCount(0, message.length())), message);
+    assertEquals(expected, rendered, preset.getName());
+  }
+}
@@ -0,0 +1,89 @@
+package io.imadam.betterchatcolours.render;
+
+import io.imadam.betterchatcolours.data.GlobalPresetData;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * A warmed-up render should allocate nothing but the String it returns.
+ */
+class LegacyWriterAllocationTest {
+
+  private static final int WARMUP = 20_000;
+  private static final int ITERATIONS = 50_000;
+  // Room for the measurement itself and object alignment on unusual JVMs
+  private static final long SLACK_BYTES = 32;
+
+  private static volatile String sink;
+
+  private com.sun.management.ThreadMXBean threads;
+
+  @BeforeEach
+  void setUp() {
+    assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+    threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    assumeTrue(threads.isThreadAllocatedMemorySupported());
+    threads.setThreadAllocatedMemoryEnabled(true);
+  }
+
+  @Test
+  void gradientAllocatesOnlyTheResult() {
+    GlobalPresetData preset = new GlobalPresetData("rainbow",
+        List.of("#FF0000", "#FFFF00", "#00FF00", "#00FFFF", "#0000FF"), "");
+    String message = "The quick brown fox jumps over the lazy dog";
+    GradientRamp ramp = preset.getRamp(message.length());
+
+    assertWithinBudget(() -> GradientRenderer.render(ramp, message));
+  }
+
+  @Test
+  void cachedRampLookupAllocatesOnlyTheResult() {
+    GlobalPresetData preset = new GlobalPresetData("ocean", List.of("#00C6FF", "#0072FF"), "");
+    String message = "Hello world";
+
+    assertWithinBudget(() -> GradientRenderer.render(
+        preset.getRamp(message.codePointCount(0, message.length())), message));
+  }
+
+  @Test
+  void solidColourAllocatesOnlyTheResult() {
+    GlobalPresetData preset = new GlobalPresetData("mint", List.of("#3EB489"), "");
+    String message = "The quick brown fox jumps over the lazy dog";
+
+    assertWithinBudget(() -> LegacyWriter.write(preset.getLegacyPrefix(), message));
+  }
+
+  private void assertWithinBudget(Supplier<String> render) {
+    String result = render.get();
+    for (int i = 0; i < WARMUP; i++) {
+      sink = render.get();
+    }
+
+    long thread = Thread.currentThread().getId();
+    long before = threads.getThreadAllocatedBytes(thread);
+    for (int i = 0; i < ITERATIONS; i++) {
+      sink = render.get();
+    }
+    long perCall = (threads.getThreadAllocatedBytes(thread) - before) / ITERATIONS;
+
+    long budget = stringSize(result) + SLACK_BYTES;
+    assertTrue(perCall <= budget, "allocated " + perCall + " bytes per render, budget " + budget);
+  }
+
+  /**
+   * Shallow size of the String plus its backing array, assuming compressed oops.
+   * Section signs fit in Latin-1, so rendered text is stored one byte per char.
+   */
+  private static long stringSize(String s) {
+    boolean latin1 = s.chars().allMatch(c -> c <= 0xFF);
+    long array = 16 + (latin1 ? s.length() : 2L * s.length());
+    return 24 + ((array + 7) & ~7L);
+  }
+}